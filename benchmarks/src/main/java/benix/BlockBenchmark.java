@@ -0,0 +1,87 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class benchmarks fetching random blocks with Volume.getBlock, from
+ ** the mapping or through the block cache.
+ **/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BlockBenchmark {
+   @Param({"64", "1024"})
+   public int imageSize;
+   
+   @Param({"true", "false"})
+   public boolean mapped;
+   
+   private Volume vol;
+   // more blocks than the cache holds, so streamed reads miss too
+   private int[] ids = new int[1 << 16];
+   private int next;
+   
+   @Setup
+   public void setup() throws IOException, InterruptedException {
+      vol = new Volume(Dumps.get(imageSize, 1024, 16, 4096).toString(), mapped);
+      int numofBlocks = (imageSize << 20) / vol.getBlockSize();
+      Random random = new Random(Dumps.SEED);
+      for (int i = 0; i < ids.length; i++) ids[i] = 1 + random.nextInt(numofBlocks - 1);
+   }
+   
+   @TearDown
+   public void tearDown() throws IOException {
+      vol.close();
+   }
+   
+   @Benchmark
+   public int getBlock() {
+      ByteBuffer block = vol.getBlock(ids[next++ & (ids.length - 1)]);
+      return block.getInt(0);
+   }
+}
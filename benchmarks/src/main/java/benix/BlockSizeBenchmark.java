@@ -0,0 +1,99 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class compares dumps of the same tree made with different block
+ ** sizes, such as 1K and 4K. Each round mounts every dump afresh in stream
+ ** mode and reads every file through once block by block, through its 
+ ** channel, and once an extent at a time, through read; the times and the
+ ** number of blocks that had to be fetched from the dump are printed.
+ **
+ ** Usage: java -cp target/benchmarks.jar benix.BlockSizeBenchmark [rounds] <dump>...
+ **/
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class BlockSizeBenchmark {
+   /**
+	 **   Runs the benchmark.
+	 **
+	 **   @param args arguments passed in from the command line.
+	 **/
+   public static void main(String[] args) throws IOException {
+      int rounds = Integer.parseInt(args[0]);
+      for (int d = 1; d < args.length; d++) {
+         long streamed = 0, positional = 0, fetched = 0, bytes = 0;
+         int blockSize = 0, numofFiles = 0;
+         for (int r = 0; r < rounds; r++) {
+            Volume vol = new Volume(args[d], false);
+            blockSize = vol.getBlockSize();
+            List<String> paths = new ArrayList<String>();
+            walk(vol, "", paths);
+            numofFiles = paths.size();
+            ByteBuffer buffer = ByteBuffer.allocate(64 << 10);
+            
+            long start = System.nanoTime();
+            bytes = 0;
+            for (String path : paths) {
+               ReadableByteChannel channel = vol.open(path).getChannel();
+               for (int n; (n = channel.read(buffer.clear())) != -1; ) bytes += n;
+            }
+            streamed += System.nanoTime() - start;
+            fetched += vol.getBlockCache().getMisses();
+            
+            start = System.nanoTime();
+            for (String path : paths) {
+               Ext2File file = vol.open(path);
+               for (long offset = 0; file.read(offset, buffer.clear()) > 0; offset += buffer.position()) ;
+            }
+            positional += System.nanoTime() - start;
+         }
+         System.out.printf("%s: %dK blocks, %d files, %.1f MB%n", args[d], blockSize >> 10, numofFiles, bytes / 1048576.0);
+         System.out.printf("   by block:  %8.2f ms, %,d blocks fetched%n", streamed / 1e6 / rounds, fetched / rounds);
+         System.out.printf("   by extent: %8.2f ms%n", positional / 1e6 / rounds);
+      }
+   }
+   
+   /**
+    * Collects the path of every regular file under a directory.
+    */
+   private static void walk(Volume vol, String path, List<String> paths) {
+      Directory dir = vol.getDirectory(path.isEmpty() ? "/" : path);
+      for (int i = 1; i <= dir.getNumofFiles(); i++) {
+         String name = dir.getName(i);
+         if (name.equals(".") || name.equals("..")) continue;
+         // type 2 is a directory, 1 a regular file
+         if (dir.getTypeIndicator(i) == 2) walk(vol, path + "/" + name, paths);
+         else if (dir.getTypeIndicator(i) == 1) paths.add(path + "/" + name);
+      }
+   }
+}
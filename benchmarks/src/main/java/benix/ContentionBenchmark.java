@@ -0,0 +1,138 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class measures how reads of a shared Volume scale with the number of
+ ** threads: each thread repeatedly resolves a random path, fetches its inode
+ ** and reads a block of the file, and the operations per second are printed
+ ** for 1, 2, 4... threads. With the sequential workload each operation reads
+ ** a whole file through its InputStream instead; on a streamed volume the 
+ ** block cache is kept small, so that the reads miss it and go through the
+ ** read-ahead.
+ **
+ ** Usage: java -cp target/benchmarks.jar benix.ContentionBenchmark <dump> [mapped|stream] [threads] [seconds] [random|sequential]
+ **/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class ContentionBenchmark {
+   /**
+	 **   Runs the benchmark.
+	 **
+	 **   @param args arguments passed in from the command line.
+	 **/
+   public static void main(String[] args) throws InterruptedException {
+      String dump = (args.length > 0) ? args[0] : "../ext2fs";
+      boolean mapped = args.length <= 1 || !args[1].equals("stream");
+      int maxThreads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+      int seconds = (args.length > 3) ? Integer.parseInt(args[3]) : 3;
+      boolean sequential = args.length > 4 && args[4].equals("sequential");
+      
+      // a 256K cache holds far less than the threads stream through it
+      Volume vol = sequential && !mapped 
+         ? new Volume(dump, false, 256L * 1024, BlockCache.LRU) 
+         : new Volume(dump, mapped);
+      List<String> paths = new ArrayList<String>();
+      walk(vol, "", paths);
+      String[] files = paths.toArray(new String[0]);
+      System.out.println(files.length + " files, " + (mapped ? "mapped" : "streamed") 
+         + ", " + (sequential ? "sequential" : "random") + " reads");
+      
+      for (int threads = 1; threads <= maxThreads; threads *= 2) {
+         long ops = run(vol, files, threads, seconds, sequential);
+         System.out.printf("%3d threads: %,12d ops/s%n", threads, ops / seconds);
+      }
+   }
+   
+   /**
+    * Collects the path of every regular file under a directory.
+    */
+   private static void walk(Volume vol, String path, List<String> paths) {
+      Directory dir = vol.getDirectory(path.isEmpty() ? "/" : path);
+      for (int i = 1; i <= dir.getNumofFiles(); i++) {
+         String name = dir.getName(i);
+         if (name.equals(".") || name.equals("..")) continue;
+         // type 2 is a directory, 1 a regular file
+         if (dir.getTypeIndicator(i) == 2) walk(vol, path + "/" + name, paths);
+         else if (dir.getTypeIndicator(i) == 1) paths.add(path + "/" + name);
+      }
+   }
+   
+   /**
+    * Runs the given number of threads against the volume for a while.
+    *
+    * @return The number of operations completed.
+    */
+   private static long run(Volume vol, String[] files, int threads, int seconds, boolean sequential) throws InterruptedException {
+      LongAdder ops = new LongAdder();
+      AtomicBoolean stop = new AtomicBoolean();
+      CountDownLatch done = new CountDownLatch(threads);
+      for (int t = 0; t < threads; t++) {
+         new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocate(vol.getBlockSize());
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (!stop.get()) {
+               String path = files[random.nextInt(files.length)];
+               Ext2File file = vol.open(path);
+               if (file != null && sequential) {
+                  drain(file, buffer.array());
+               } else if (file != null && file.getLength() > 0) {
+                  buffer.clear();
+                  file.read(random.nextLong(file.getLength()), buffer);
+               }
+               ops.increment();
+            }
+            done.countDown();
+         }).start();
+      }
+      Thread.sleep(seconds * 1000L);
+      stop.set(true);
+      done.await();
+      return ops.sum();
+   }
+   
+   /**
+    * Reads a file from start to end through its InputStream.
+    */
+   private static void drain(Ext2File file, byte[] buffer) {
+      try (InputStream in = file.getInputStream()) {
+         while (in.read(buffer) != -1);
+      } catch (IOException ex) {
+         throw new UncheckedIOException(ex);
+      }
+   }
+}
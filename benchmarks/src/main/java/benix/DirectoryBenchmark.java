@@ -0,0 +1,100 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class benchmarks directories of different fan-outs: finding an
+ ** entry by name in a parsed directory, looking a name up in a fresh one,
+ ** which an htree index lets skip the parse, and listing one. Listings are
+ ** printed to a stream that discards them.
+ **/
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DirectoryBenchmark {
+   @Param({"16", "256", "4096"})
+   public int fanOut;
+   
+   private Volume vol;
+   private Directory dir;
+   private String[] names = new String[1 << 12];
+   private int next;
+   private PrintStream stdout;
+   
+   @Setup
+   public void setup() throws IOException, InterruptedException {
+      vol = new Volume(Dumps.get(64, 1024, fanOut, 4096).toString());
+      dir = vol.getDirectory(Dumps.FILES);
+      Random random = new Random(Dumps.SEED);
+      for (int i = 0; i < names.length; i++) names[i] = Dumps.name(random.nextInt(fanOut));
+      stdout = System.out;
+      System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+   }
+   
+   @TearDown
+   public void tearDown() throws IOException {
+      System.setOut(stdout);
+      vol.close();
+   }
+   
+   @Benchmark
+   public int getFileNum() {
+      return dir.getFileNum(names[next++ & (names.length - 1)]);
+   }
+   
+   @Benchmark
+   public int lookup() {
+      return vol.getDirectory(Dumps.FILES).lookup(names[next++ & (names.length - 1)]);
+   }
+   
+   @Benchmark
+   public void listDir() {
+      dir.listDir();
+   }
+}
@@ -0,0 +1,106 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class generates the ext2 dumps the benchmarks run against. Each dump
+ ** holds a directory /files of empty files, as many as the fan-out asks for,
+ ** and a file /data of the given size filled with seeded random bytes. The
+ ** dumps are built with mke2fs from a staging tree, and kept under the
+ ** temporary directory so that later runs can reuse them.
+ **/
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Dumps {
+   public static final String FILES = "/files", DATA = "/data";
+   public static final long SEED = 0x5EED;
+   
+   /**
+    * Finds or generates a dump.
+    *
+    * @param sizeMB The size of the dump in megabytes.
+    * @param blockSize The block size, 1024, 2048 or 4096.
+    * @param fanOut The number of files in /files.
+    * @param fileSize The size of /data in bytes.
+    * @return The path of the dump.
+    */
+   public static synchronized Path get(int sizeMB, int blockSize, int fanOut, int fileSize) throws IOException, InterruptedException {
+      Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "benix-dumps");
+      Path dump = dir.resolve("benix-" + sizeMB + "M-" + blockSize + "-" + fanOut + "-" + fileSize + ".img");
+      if (Files.exists(dump)) return dump;
+      
+      Files.createDirectories(dir);
+      Path staging = Files.createTempDirectory(dir, "staging");
+      // built beside the dump and moved into place, so a failed run never
+      // leaves half a dump to be reused
+      Path partial = Files.createTempFile(dir, "partial", ".img");
+      try {
+         Path files = Files.createDirectory(staging.resolve(FILES.substring(1)));
+         for (int i = 0; i < fanOut; i++) Files.createFile(files.resolve(name(i)));
+         byte[] data = new byte[fileSize];
+         new Random(SEED).nextBytes(data);
+         Files.write(staging.resolve(DATA.substring(1)), data);
+         
+         Process mke2fs = new ProcessBuilder("mke2fs", "-q", "-F", "-t", "ext2", "-b", String.valueOf(blockSize), 
+                                             "-d", staging.toString(), partial.toString(), sizeMB + "M")
+                             .inheritIO().start();
+         if (mke2fs.waitFor() != 0) throw new IOException("mke2fs failed for " + dump);
+         Files.move(partial, dump);
+      } finally {
+         Files.deleteIfExists(partial);
+         delete(staging);
+      }
+      return dump;
+   }
+   
+   /**
+    * Deletes a directory and everything under it.
+    */
+   private static void delete(Path dir) throws IOException {
+      try (Stream<Path> paths = Files.walk(dir)) {
+         // children before their parents
+         for (Path path : (Iterable<Path>)paths.sorted(Comparator.reverseOrder())::iterator) Files.delete(path);
+      }
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param index The index of a file in /files.
+	 * @return The file's name.
+	 */
+   public static String name(int index) {
+      return "file" + index;
+   }
+}
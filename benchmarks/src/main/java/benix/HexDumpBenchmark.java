@@ -0,0 +1,91 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class benchmarks hex dumping a block, through Block.hexDump to a
+ ** discarded standard output, and a run of blocks through one shared
+ ** HexDumpWriter.
+ **/
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HexDumpBenchmark {
+   @Param({"1024", "4096"})
+   public int blockSize;
+   
+   private Volume vol;
+   private Block block;
+   private Ext2File file;
+   private PrintStream stdout;
+   
+   @Setup
+   public void setup() throws IOException, InterruptedException {
+      vol = new Volume(Dumps.get(64, blockSize, 16, 1 << 20).toString());
+      file = vol.open(Dumps.DATA);
+      block = file.getBlock(1);
+      stdout = System.out;
+      System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+   }
+   
+   @TearDown
+   public void tearDown() throws IOException {
+      System.setOut(stdout);
+      vol.close();
+   }
+   
+   @Benchmark
+   public void hexDumpBlock() {
+      block.hexDump();
+   }
+   
+   @Benchmark
+   public void hexDumpFile() throws IOException {
+      file.hexDump(OutputStream.nullOutputStream(), 0, file.getLength());
+   }
+}
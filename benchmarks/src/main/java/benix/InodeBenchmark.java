@@ -0,0 +1,97 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class benchmarks reading inodes: decoded through BlockGroup.getInode
+ ** and the inode cache, or viewed in place with a reused InodeCursor.
+ **/
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class InodeBenchmark {
+   // the number of files, and so of inodes in use
+   @Param({"16", "4096"})
+   public int fanOut;
+   
+   @Param({"true", "false"})
+   public boolean mapped;
+   
+   private Volume vol;
+   private int[] ids = new int[1 << 12];
+   private int inodesPerGroup;
+   private int next;
+   private InodeCursor cursor = new InodeCursor();
+   
+   @Setup
+   public void setup() throws IOException, InterruptedException {
+      vol = new Volume(Dumps.get(64, 1024, fanOut, 4096).toString(), mapped);
+      inodesPerGroup = vol.getSuperBlock().getInodesPerGroup();
+      List<Integer> used = new ArrayList<Integer>();
+      vol.forEachInode((id, inode) -> used.add(id));
+      Random random = new Random(Dumps.SEED);
+      for (int i = 0; i < ids.length; i++) ids[i] = used.get(random.nextInt(used.size()));
+   }
+   
+   @TearDown
+   public void tearDown() throws IOException {
+      vol.close();
+   }
+   
+   @Benchmark
+   public long getInode() {
+      int id = ids[next++ & (ids.length - 1)];
+      return vol.getBlockGroup((id - 1) / inodesPerGroup).getInode(id, false).getFileSize();
+   }
+   
+   @Benchmark
+   public long getInodeCursor() {
+      return vol.getInode(ids[next++ & (ids.length - 1)], cursor).getFileSize();
+   }
+}
@@ -0,0 +1,79 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class measures how a whole-volume inode scan scales with cores: the
+ ** sequential scan is timed, then the parallel scan on pools of 1, 2, 4...
+ ** workers, each tallying the size and block count of every inode in use.
+ **
+ ** Usage: java -cp target/benchmarks.jar benix.InodeScanBenchmark <dump> [mapped|stream] [workers] [rounds]
+ **/
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class InodeScanBenchmark {
+   /**
+	 **   Runs the benchmark.
+	 **
+	 **   @param args arguments passed in from the command line.
+	 **/
+   public static void main(String[] args) {
+      String dump = (args.length > 0) ? args[0] : "../ext2fs";
+      boolean mapped = args.length <= 1 || !args[1].equals("stream");
+      int maxWorkers = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+      int rounds = (args.length > 3) ? Integer.parseInt(args[3]) : 20;
+      
+      Volume vol = new Volume(dump, mapped);
+      LongAdder used = new LongAdder(), bytes = new LongAdder(), sectors = new LongAdder();
+      InodeVisitor tally = (id, inode) -> {
+         if (inode.getHardLinks() == 0) return;
+         used.increment();
+         bytes.add(inode.getFileSize());
+         sectors.add(inode.getSectorCount() & 0xFFFFFFFFL);
+      };
+      
+      long start = System.nanoTime();
+      for (int r = 0; r < rounds; r++) vol.forEachInode(tally);
+      report("sequential", start, rounds);
+      System.out.println(used.sum() / rounds + " inodes in use, " + bytes.sum() / rounds + " bytes, " 
+                         + sectors.sum() / rounds + " sectors");
+      
+      for (int workers = 1; workers <= maxWorkers; workers *= 2) {
+         ForkJoinPool pool = new ForkJoinPool(workers);
+         start = System.nanoTime();
+         for (int r = 0; r < rounds; r++) vol.parallelForEachInode(tally, pool);
+         report(workers + " workers", start, rounds);
+         pool.shutdown();
+      }
+   }
+   
+   private static void report(String label, long start, int rounds) {
+      System.out.printf("%-12s %10.3f ms/scan%n", label, (System.nanoTime() - start) / 1e6 / rounds);
+   }
+}
@@ -0,0 +1,188 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a volume's asynchronous reads, made through an
+ ** AsynchronousFileChannel so that many can be outstanding without a thread
+ ** each. At most a fixed number of reads are in flight at once; reads past
+ ** that wait in a bounded queue, and reads past that are rejected, failing
+ ** their futures with a RejectedExecutionException for the caller to back 
+ ** off on.
+ **/
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class AsyncReader {
+   private final Volume volume;
+   private final AsynchronousFileChannel channel;
+   private final int maxInFlight, maxQueued;
+   private final ArrayDeque<Read> queue = new ArrayDeque<>();
+   private int inFlight;
+   private long rejected;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param volume The volume to count reads against.
+    **   @param path The ext2 dump.
+    **   @param maxInFlight The most reads to have in flight at once.
+    **   @param maxQueued The most reads to queue behind them.
+    **/
+   public AsyncReader(Volume volume, Path path, int maxInFlight, int maxQueued) throws IOException {
+      this.volume = volume;
+      this.channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+      this.maxInFlight = maxInFlight;
+      this.maxQueued = maxQueued;
+   }
+   
+   /**
+    * Fills a buffer from the dump, now if a read can be put in flight or
+    * later if it has to queue.
+    *
+    * @param dst The buffer to fill, which must not be touched until the 
+    *        future completes.
+    * @param position The offset in the dump to read from.
+    * @return The buffer, once full; or a failed future if the read was 
+    *         rejected or failed.
+    */
+   public CompletableFuture<ByteBuffer> read(ByteBuffer dst, long position) {
+      Read read = new Read(dst, position);
+      synchronized (this) {
+         if (inFlight == maxInFlight) {
+            if (queue.size() < maxQueued) queue.add(read);
+            else {
+               rejected++;
+               read.future.completeExceptionally(new RejectedExecutionException("too many reads outstanding"));
+            }
+            return read.future;
+         }
+         inFlight++;
+      }
+      read.start();
+      return read.future;
+   }
+   
+   /**
+    * Hands a finished read's place in flight to the next queued read.
+    */
+   private void finished() {
+      Read next;
+      synchronized (this) {
+         next = queue.poll();
+         if (next == null) inFlight--;
+      }
+      if (next != null) next.start();
+   }
+   
+   /**
+    * Closes the channel. Reads still outstanding fail.
+    */
+   public void close() throws IOException {
+      channel.close();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of reads in flight.
+	 */
+   public synchronized int getInFlight() {
+      return this.inFlight;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of reads waiting to be put in flight.
+	 */
+   public synchronized int getQueued() {
+      return this.queue.size();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of reads rejected for want of room in the queue.
+	 */
+   public synchronized long getRejected() {
+      return this.rejected;
+   }
+   
+   /**
+    * One read, reissued from where it got to until the buffer is full.
+    */
+   private class Read implements CompletionHandler<Integer, Void> {
+      final ByteBuffer dst;
+      final CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+      long position;
+      
+      Read(ByteBuffer dst, long position) {
+         this.dst = dst;
+         this.position = position;
+      }
+      
+      void start() {
+         if (VolumeStats.ENABLED) volume.getStats().recordRead(dst.remaining());
+         this.next();
+      }
+      
+      private void next() {
+         try {
+            channel.read(dst, position, null, this);
+         } catch (RuntimeException ex) {
+            this.failed(ex, null);
+         }
+      }
+      
+      public void completed(Integer n, Void unused) {
+         if (n == -1) {
+            this.failed(new EOFException(), null);
+         } else if (dst.hasRemaining()) {
+            position += n;
+            this.next();
+         } else {
+            finished();
+            future.complete(dst);
+         }
+      }
+      
+      public void failed(Throwable ex, Void unused) {
+         finished();
+         future.completeExceptionally(ex);
+      }
+   }
+}
@@ -20,6 +20,8 @@
  * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
  ******************************************************************************/
 
+package benix;
+
 /**
  ** This class runs the OS.
  **/
@@ -39,9 +41,9 @@ public class Benix {
       Volume vol = new Volume("../ext2fs");
       vol.listRoot();
       
-      Ext2File file = new Ext2File(vol.getFile("two-cities"), false);
+      Ext2File file = new Ext2File(vol.getFile("two-cities"), vol.getBlockSize(), false);
       
-      Directory dir = new Directory(vol.getFile("lost+found"), false);
+      Directory dir = new Directory(vol.getFile("lost+found"), vol.getBlockSize(), false);
       dir.listDir();
    }
 }
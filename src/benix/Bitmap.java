@@ -0,0 +1,131 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a block group's inode or block bitmap, copied into
+ ** a compact bitset of longs. Bit i is set if inode or block i of the group
+ ** is in use, and set bits are found a word at a time, so runs of free 
+ ** entries are skipped 64 at once.
+ **/
+
+import java.nio.ByteBuffer;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Bitmap {
+   private final long[] words;
+   private final int numofBits;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param block The bitmap block; bit i is bit i%8 of byte i/8.
+    **   @param numofBits The number of entries the bitmap covers. Any bits
+    **          past them, which ext2 pads with ones, are cleared.
+    **/
+   public Bitmap(ByteBuffer block, int numofBits) {
+      this.numofBits = numofBits;
+      this.words = new long[(numofBits + 63) >>> 6];
+      int numofBytes = (numofBits + 7) >>> 3;
+      for (int w = 0; w < words.length; w++) {
+         // a little-endian long holds bits 64w to 64w+63 in order
+         if (w * 8 + 8 <= numofBytes) {
+            words[w] = block.getLong(w * 8);
+         } else {
+            for (int b = w * 8; b < numofBytes; b++)
+               words[w] |= (long)(block.get(b) & 0xFF) << ((b - w * 8) * 8);
+         }
+      }
+      if ((numofBits & 63) != 0) words[words.length - 1] &= -1L >>> (64 - (numofBits & 63));
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param index The index of the entry.
+	 * @return Whether the entry is in use.
+	 */
+   public boolean get(int index) {
+      return (words[index >>> 6] & (1L << index)) != 0;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param from The index to search from.
+	 * @return The index of the first entry in use at or after from, or -1 if
+    *         there is none.
+	 */
+   public int nextSetBit(int from) {
+      if (from >= numofBits) return -1;
+      int w = from >>> 6;
+      long word = words[w] & (-1L << from);
+      while (word == 0) {
+         if (++w == words.length) return -1;
+         word = words[w];
+      }
+      return (w << 6) + Long.numberOfTrailingZeros(word);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param from The index to search from.
+	 * @return The index of the first free entry at or after from, or -1 if
+    *         there is none.
+	 */
+   public int nextClearBit(int from) {
+      if (from >= numofBits) return -1;
+      int w = from >>> 6;
+      long word = ~words[w] & (-1L << from);
+      while (word == 0) {
+         if (++w == words.length) return -1;
+         word = ~words[w];
+      }
+      int index = (w << 6) + Long.numberOfTrailingZeros(word);
+      return (index < numofBits) ? index : -1;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of entries in use.
+	 */
+   public int cardinality() {
+      int count = 0;
+      for (long word : words) count += Long.bitCount(word);
+      return count;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of entries the bitmap covers.
+	 */
+   public int size() {
+      return this.numofBits;
+   }
+}
@@ -0,0 +1,187 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a block. A Block only ever reads its buffer by
+ ** absolute index, so many Blocks can share one buffer (and each other's
+ ** views of it) without disturbing its position.
+ **/
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Block {
+   ByteBuffer block;
+   private int pointer;
+   // one writer to System.out for every Block, so that dumping block after
+   // block does not allocate a batch each time; replaced if System.out is
+   private static HexDumpWriter stdout;
+   private static PrintStream stdoutStream;
+    
+   /**
+    **   Constructor method.
+    **
+    **   @param block The block byte dump.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Block(ByteBuffer block, boolean debug) {
+      this.block = block;
+   }
+    
+   /**
+    **   Constructor method. Wraps a little-endian view of part of a parent
+    **   buffer, without copying it.
+    **
+    **   @param parent The buffer holding the block.
+    **   @param offset The offset of the block within the parent.
+    **   @param length The length of the block.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Block(ByteBuffer parent, int offset, int length, boolean debug) {
+      this(parent.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN), debug);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param offset The offset of the view within the block.
+    * @param length The length of the view.
+	 * @return A Block viewing part of this one.
+	 */
+   public Block slice(int offset, int length) {
+      return new Block(block, offset, length, false);
+   }
+   
+   /**
+    **   Copies bytes from a given index into an array.
+    **
+    **   @param index The index.
+    **   @param dst The array to copy into.
+    **   @param offset The offset within the array.
+    **   @param length The number of bytes.
+    **/
+   public void get(int index, byte[] dst, int offset, int length) {
+      block.get(index, dst, offset, length);
+   }
+   
+   /**
+    **   Copies bytes from a given index into a buffer, advancing its
+    **   position.
+    **
+    **   @param index The index.
+    **   @param dst The buffer to copy into.
+    **   @param length The number of bytes.
+    **/
+   public void get(int index, ByteBuffer dst, int length) {
+      dst.put(dst.position(), block, index, length);
+      dst.position(dst.position() + length);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The length of the block in bytes.
+	 */
+   public int length() {
+      return block.limit();
+   }
+      
+   /**
+    **   Gets one byte, increments the pointer. The pointer belongs to this
+    **   Block, not to the underlying buffer.
+    **
+    **   @return A byte.
+    **/
+   public byte get() {
+      return block.get(pointer++);
+   }
+   /**
+    **   Gets one byte from a given index.
+    **
+    **   @param index The index.
+    **   @return A byte.
+    **/
+   public byte get(int index) {
+      return block.get(index);
+   }
+     
+   /**
+    **   Gets two bytes from a given index.
+    **
+    **   @param index The index.
+    **   @return A short.
+    **/
+   public short getShort(int index) {
+      return block.getShort(index);
+   }
+   
+   /**
+    **   Gets four bytes from a given index.
+    **
+    **   @param index The index.
+    **   @return An int.
+    **/
+   public int getInt(int index) {
+      return block.getInt(index);
+   }
+       
+   /**
+    **   Prints a formatted hex dump of the block's contents, through a writer
+    **   shared by all Blocks. Each call flushes, so to dump many blocks, pass
+    **   one writer to hexDump(writer, from, to, offset) and flush it once.
+    **/
+   public void hexDump() {
+      synchronized (Block.class) {
+         try {
+            if (stdout == null || stdoutStream != System.out) {
+               stdoutStream = System.out;
+               stdout = new HexDumpWriter(stdoutStream);
+            }
+            this.hexDump(stdout, 0, block.limit(), 0);
+            stdout.flush();
+         } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+         }
+      }
+   }
+   
+   /**
+    **   Writes a hex dump of part of the block's contents.
+    **
+    **   @param writer The writer to dump to.
+    **   @param from The index in the block to start from.
+    **   @param to The index in the block to stop before.
+    **   @param offset The offset to label the first line with.
+    **/
+   public void hexDump(HexDumpWriter writer, int from, int to, long offset) throws IOException {
+      writer.write(block, from, to, offset);
+   }
+}
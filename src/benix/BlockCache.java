@@ -0,0 +1,245 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a bounded cache of blocks, keyed by block number.
+ ** Blocks holding metadata (inode tables, directories, indirect pointers)
+ ** are passed over by the eviction policy until they fill half the cache,
+ ** so that streaming through file data does not flush them.
+ **
+ ** A cache may be split into stripes: independent caches, each with its own
+ ** lock and a share of the budget, that blocks are spread across by number.
+ ** Threads touching different stripes never contend.
+ **/
+
+import java.nio.ByteBuffer;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class BlockCache {
+   public static final int LRU = 0, CLOCK = 1;
+   
+   private BlockCache[] stripes;
+   private IntSlotMap index;
+   private EvictionPolicy policy;
+   private ByteBuffer[] blocks;
+   private int[] blockIDs;
+   private boolean[] metadata;
+   private int[] freeSlots;
+   private int numofFreeSlots, numofMetadata;
+   private long hits, misses, evictions;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param maxBytes The most bytes of blocks the cache may hold.
+    **   @param blockSize The size of a block in bytes.
+    **   @param policy The eviction policy, LRU or CLOCK.
+    **/
+   public BlockCache(long maxBytes, int blockSize, int policy) {
+      this(maxBytes, blockSize, policy, 1);
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param maxBytes The most bytes of blocks the cache may hold.
+    **   @param blockSize The size of a block in bytes.
+    **   @param policy The eviction policy, LRU or CLOCK.
+    **   @param numofStripes The number of independently locked stripes, a
+    **          power of two.
+    **/
+   public BlockCache(long maxBytes, int blockSize, int policy, int numofStripes) {
+      if (numofStripes > 1) {
+         this.stripes = new BlockCache[numofStripes];
+         for (int i = 0; i < numofStripes; i++)
+            this.stripes[i] = new BlockCache(maxBytes / numofStripes, blockSize, policy, 1);
+         return;
+      }
+      
+      int numofSlots = (int)Math.max(1, Math.min(Integer.MAX_VALUE / 2, maxBytes / blockSize));
+      this.index = new IntSlotMap(numofSlots);
+      this.policy = (policy == CLOCK) ? new ClockPolicy(numofSlots) : new LRUPolicy(numofSlots);
+      this.blocks = new ByteBuffer[numofSlots];
+      this.blockIDs = new int[numofSlots];
+      this.metadata = new boolean[numofSlots];
+      this.freeSlots = new int[numofSlots];
+      for (int i = 0; i < numofSlots; i++) this.freeSlots[i] = numofSlots - 1 - i;
+      this.numofFreeSlots = numofSlots;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param id The index of the block.
+	 * @return The cached block, or null if it is not cached.
+	 */
+   public ByteBuffer get(int id) {
+      if (stripes != null) return stripes[stripe(id)].get(id);
+      synchronized (this) {
+         return this.lookup(id);
+      }
+   }
+   
+   private ByteBuffer lookup(int id) {
+      int slot = index.get(id);
+      if (slot == IntSlotMap.NO_SLOT) {
+         misses++;
+         return null;
+      }
+      hits++;
+      policy.onAccess(slot);
+      return blocks[slot];
+   }
+   
+	/**
+	 *	Accessor function. Unlike get, this is not counted as a lookup.
+    *
+    * @param id The index of the block.
+	 * @return Whether the block is cached.
+	 */
+   public boolean contains(int id) {
+      if (stripes != null) return stripes[stripe(id)].contains(id);
+      synchronized (this) {
+         return index.get(id) != IntSlotMap.NO_SLOT;
+      }
+   }
+   
+   /**
+    * Caches a block, evicting another if the cache is full.
+    *
+    * @param id The index of the block.
+    * @param block The block's byte dump.
+    * @param isMetadata Whether the block holds filesystem metadata.
+    */
+   public void put(int id, ByteBuffer block, boolean isMetadata) {
+      if (stripes != null) {
+         stripes[stripe(id)].put(id, block, isMetadata);
+         return;
+      }
+      synchronized (this) {
+         this.insert(id, block, isMetadata);
+      }
+   }
+   
+   private void insert(int id, ByteBuffer block, boolean isMetadata) {
+      int slot = index.get(id);
+      if (slot != IntSlotMap.NO_SLOT) {
+         blocks[slot] = block;
+         policy.onAccess(slot);
+         return;
+      }
+      if (numofFreeSlots == 0) evict();
+      slot = freeSlots[--numofFreeSlots];
+      blocks[slot] = block;
+      blockIDs[slot] = id;
+      metadata[slot] = isMetadata;
+      if (isMetadata) numofMetadata++;
+      index.put(id, slot);
+      policy.onInsert(slot);
+   }
+   
+   /**
+    * Frees one slot, passing over metadata blocks while they hold no more
+    * than half of the cache.
+    */
+   private void evict() {
+      int slot = policy.victim();
+      for (int i = 0; i < blocks.length && metadata[slot] && numofMetadata <= blocks.length / 2; i++) {
+         policy.onAccess(slot);
+         slot = policy.victim();
+      }
+      policy.onRemove(slot);
+      index.remove(blockIDs[slot]);
+      if (metadata[slot]) numofMetadata--;
+      blocks[slot] = null;
+      freeSlots[numofFreeSlots++] = slot;
+      evictions++;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of lookups that found their block.
+	 */
+   public long getHits() {
+      if (stripes != null) {
+         long sum = 0;
+         for (BlockCache stripe : stripes) sum += stripe.getHits();
+         return sum;
+      }
+      return this.hits;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of lookups that did not find their block.
+	 */
+   public long getMisses() {
+      if (stripes != null) {
+         long sum = 0;
+         for (BlockCache stripe : stripes) sum += stripe.getMisses();
+         return sum;
+      }
+      return this.misses;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of blocks evicted to make room for others.
+	 */
+   public long getEvictions() {
+      if (stripes != null) {
+         long sum = 0;
+         for (BlockCache stripe : stripes) sum += stripe.getEvictions();
+         return sum;
+      }
+      return this.evictions;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of blocks cached.
+	 */
+   public int size() {
+      if (stripes != null) {
+         int sum = 0;
+         for (BlockCache stripe : stripes) sum += stripe.size();
+         return sum;
+      }
+      synchronized (this) {
+         return index.size();
+      }
+   }
+   
+   private int stripe(int id) {
+      // takes the top bits, as the slot index already uses the bottom ones
+      return (id * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(stripes.length - 1);
+   }
+}
@@ -0,0 +1,262 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a block group.
+ **/
+ 
+import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class BlockGroup {
+   private final Volume volume;
+   private final SuperBlock superBlock;
+   private final GroupDescTable groupDescs;
+   private final int groupNum;
+   private volatile Directory rootDir;
+   private volatile Bitmap inodeBitmap, blockBitmap;
+   private final boolean debug;
+   private final int inodeSize, inodesPerBlock;
+    
+   /**
+    **   Constructor method. Nothing is read until an inode or block is asked
+    **   for.
+    **
+    **   @param volume The volume the block group belongs to.
+    **   @param superBlock The volume's superblock.
+    **   @param groupDescs The volume's group descriptor table.
+    **   @param groupNum The index of the block group.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public BlockGroup(Volume volume, SuperBlock superBlock, GroupDescTable groupDescs, int groupNum, boolean debug) {
+      this.volume = volume;
+      this.superBlock = superBlock;
+      this.groupDescs = groupDescs;
+      this.groupNum = groupNum;
+      this.debug = debug;
+      this.inodeSize = volume.getInodeSize();
+      this.inodesPerBlock = volume.getBlockSize() / inodeSize;
+   }
+   
+	/**
+	 *	Accessor function. The block group only reads inode tables and
+    * directories, so every block is cached as metadata.
+    *
+    * @param id The index of the block.
+	 * @return A Block.
+	 */
+   public ByteBuffer getBlock(int id) {
+      return this.volume.getBlock(id, true);
+   } 
+   
+	/**
+	 *	Accessor function. Inodes are shared through the volume's inode
+    * cache, which debug mode bypasses so that the fields are printed.
+    *
+    * @param id The index of the inode.
+    * @param debug Whether debug mode is active or not.
+	 * @return An Inode.
+	 */
+   public Inode getInode(int id, boolean debug) {
+      return this.volume.getInode(id, debug);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param id The index of the inode.
+    * @param cursor The cursor to point at the inode.
+	 * @return The cursor.
+	 */
+   public InodeCursor getInode(int id, InodeCursor cursor) {
+      // gets the correct block of the inode table for the inode
+      int index = (id - 1) % this.superBlock.getInodesPerGroup();
+      return cursor.moveTo(this.getBlock(this.groupDescs.getInodeTablePointer(groupNum) + index / inodesPerBlock),
+                           inodeSize * (index % inodesPerBlock));
+   }
+   
+   /**
+    * Visits every inode in use in the block group with one reused cursor.
+    *
+    * @param visitor The callback for each inode.
+    */
+   public void forEachInode(InodeVisitor visitor) {
+      this.forEachInode(visitor, 0, this.getNumofInodeTableBlocks());
+   }
+   
+   /**
+    * Visits the inodes in use in part of the block group's inode table with
+    * one reused cursor, decoding each straight from its table block. Free
+    * inodes are skipped using the inode bitmap, and table blocks holding 
+    * none in use are never read.
+    *
+    * @param visitor The callback for each inode.
+    * @param fromBlock The first block of the inode table to visit, from 0.
+    * @param toBlock The block of the inode table to stop before.
+    */
+   public void forEachInode(InodeVisitor visitor, int fromBlock, int toBlock) {
+      InodeCursor cursor = new InodeCursor();
+      Bitmap bitmap = this.getInodeBitmap();
+      int firstID = this.groupNum * this.superBlock.getInodesPerGroup() + 1;
+      int end = Math.min(toBlock * inodesPerBlock, bitmap.size());
+      ByteBuffer table = null;
+      int tableBlock = -1, visited = 0;
+      for (int i = bitmap.nextSetBit(fromBlock * inodesPerBlock); i != -1 && i < end; i = bitmap.nextSetBit(i + 1)) {
+         if (i / inodesPerBlock != tableBlock) {
+            tableBlock = i / inodesPerBlock;
+            table = this.getBlock(this.groupDescs.getInodeTablePointer(groupNum) + tableBlock);
+         }
+         visitor.visit(firstID + i, cursor.moveTo(table, inodeSize * (i % inodesPerBlock)));
+         visited++;
+      }
+      if (VolumeStats.ENABLED) this.volume.getStats().inodesDecoded.add(visited);
+   }
+   
+   /**
+    * Visits the index of every block in use in the block group.
+    *
+    * @param visitor The callback for each block.
+    */
+   public void forEachUsedBlock(IntConsumer visitor) {
+      Bitmap bitmap = this.getBlockBitmap();
+      int firstBlock = this.getFirstBlock();
+      for (int i = bitmap.nextSetBit(0); i != -1; i = bitmap.nextSetBit(i + 1))
+         visitor.accept(firstBlock + i);
+   }
+   
+	/**
+	 *	Accessor function. Reads the inode bitmap the first time it is asked
+    * for.
+    *
+	 * @return The inode bitmap.
+	 */
+   public Bitmap getInodeBitmap() {
+      // racing readers may each build one; any of them will do
+      Bitmap bitmap = this.inodeBitmap;
+      if (bitmap == null)
+         this.inodeBitmap = bitmap = new Bitmap(this.getBlock(this.groupDescs.getInodeBitmapPointer(groupNum)), 
+                                                this.superBlock.getInodesPerGroup());
+      return bitmap;
+   }
+   
+	/**
+	 *	Accessor function. Reads the block bitmap the first time it is asked
+    * for.
+    *
+	 * @return The block bitmap.
+	 */
+   public Bitmap getBlockBitmap() {
+      Bitmap bitmap = this.blockBitmap;
+      if (bitmap == null) {
+         // the last group may be cut short by the end of the volume
+         int numofBlocks = Math.min(this.superBlock.getBlocksPerGroup(), 
+                                    this.superBlock.getNumofBlocks() - this.getFirstBlock());
+         this.blockBitmap = bitmap = new Bitmap(this.getBlock(this.groupDescs.getBlockBitmapPointer(groupNum)), numofBlocks);
+      }
+      return bitmap;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The index of the block group's first block.
+	 */
+   public int getFirstBlock() {
+      return this.superBlock.getFirstDataBlock() + this.groupNum * this.superBlock.getBlocksPerGroup();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of free blocks in the block group.
+	 */
+   public int getNumofFreeBlocks() {
+      Bitmap bitmap = this.getBlockBitmap();
+      return bitmap.size() - bitmap.cardinality();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of free inodes in the block group.
+	 */
+   public int getNumofFreeInodes() {
+      Bitmap bitmap = this.getInodeBitmap();
+      return bitmap.size() - bitmap.cardinality();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of blocks in the block group's inode table.
+	 */
+   public int getNumofInodeTableBlocks() {
+      return (this.superBlock.getInodesPerGroup() + inodesPerBlock - 1) / inodesPerBlock;
+   }
+   
+	/**
+	 *	Accessor function. Reads the root directory the first time it is asked
+    * for.
+    *
+	 * @return The root Directory.
+	 */
+   private Directory getRootDir() {
+      // racing readers may each build one; any of them will do
+      Directory dir = this.rootDir;
+      if (dir == null)
+         this.rootDir = dir = new Directory(this.volume, getInode(2, this.debug), this.superBlock, this.debug);
+      return dir;
+   }
+   
+   /**
+    * Prints the directory listing.
+    */
+   public void listDir() {
+      this.getRootDir().listDir();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param fileName The filename.
+	 * @return The file's inode pointer.
+	 */
+   public int getFileInodePointer(String fileName) {
+      return this.getRootDir().lookup(fileName);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param fileName The filename.
+	 * @return The file's length.
+	 */
+   public int getFileLength(String fileName) {
+      return this.getRootDir().getLength(this.getRootDir().getFileNum(fileName));
+   }
+}
@@ -0,0 +1,255 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents the mapping of a file's logical blocks to physical
+ ** blocks, through the direct pointers and the indirect, double- and
+ ** triple-indirect pointer blocks. Runs of logical blocks that are also
+ ** physically contiguous are merged into extents, held in primitive arrays;
+ ** holes are extents whose physical start is 0.
+ **/
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class BlockMap {
+   public static final int NUMOF_DIRECT = 12;
+   
+   private int numofBlocks;
+   private int pointersPerBlock;
+   private int[] logicalStarts = new int[4];
+   private int[] physicalStarts = new int[4];
+   private int[] lengths = new int[4];
+   private int numofExtents;
+   private int mapped;
+   
+   /**
+    **   Constructor method. Reads every pointer block the file needs.
+    **
+    **   @param volume The volume holding the file.
+    **   @param inode The file's inode.
+    **   @throws IllegalArgumentException If the inode is a fast symlink, 
+    **           whose block pointers hold its target instead.
+    **/
+   public BlockMap(Volume volume, Inode inode) {
+      int blockSize = volume.getBlockSize();
+      if (inode.isFastSymlink(blockSize)) 
+         throw new IllegalArgumentException("a fast symlink has no blocks to map; its target is held in its inode");
+      this.pointersPerBlock = blockSize / 4;
+      this.numofBlocks = (int)((inode.getFileSize() + blockSize - 1) / blockSize);
+      
+      for (int i = 0; i < NUMOF_DIRECT; i++) this.add(inode.getBlockPointer(i), 1);
+      this.mapIndirect(volume, inode.getIndirectPointer(), 1);
+      this.mapIndirect(volume, inode.getDIndirectPointer(), 2);
+      this.mapIndirect(volume, inode.getTIndirectPointer(), 3);
+   }
+   
+   /**
+    * Maps one logical block without mapping the rest of the file, reading
+    * only the pointer blocks on its way down, through the block cache.
+    *
+    * @param volume The volume holding the file.
+    * @param inode The file's inode.
+    * @param logical The index of the logical block, from 0.
+    * @return The physical block, or 0 if the block is a hole or past the 
+    *         end of the file.
+    */
+   static int getPhysical(Volume volume, Inode inode, int logical) {
+      int blockSize = volume.getBlockSize();
+      if (logical < 0 || logical >= (inode.getFileSize() + blockSize - 1) / blockSize) return 0;
+      if (logical < NUMOF_DIRECT) return inode.getBlockPointer(logical);
+      
+      int pointersPerBlock = blockSize / 4;
+      long index = logical - NUMOF_DIRECT, span = pointersPerBlock;
+      int pointer = inode.getIndirectPointer();
+      if (index >= span) {
+         index -= span;
+         span *= pointersPerBlock;
+         pointer = inode.getDIndirectPointer();
+         if (index >= span) {
+            index -= span;
+            span *= pointersPerBlock;
+            pointer = inode.getTIndirectPointer();
+         }
+      }
+      for (; span > 1 && pointer != 0; index %= span) {
+         span /= pointersPerBlock;
+         pointer = volume.getBlock(pointer, true).getInt((int)(index / span) * 4);
+      }
+      return pointer;
+   }
+   
+   /**
+    * Maps the blocks under a pointer block.
+    *
+    * @param volume The volume holding the pointer block.
+    * @param pointer The pointer block.
+    * @param depth The levels of indirection below it, from 1.
+    */
+   private void mapIndirect(Volume volume, int pointer, int depth) {
+      this.mapIndirect(volume, new int[] {pointer}, 1, depth);
+   }
+   
+   /**
+    * Maps the blocks under a run of sibling pointer blocks, in order. The 
+    * pointer blocks the file reaches into are read together, so a level of
+    * pointer blocks laid out next to each other costs one read. A missing
+    * pointer block is a hole as large as everything it would have mapped.
+    *
+    * @param volume The volume holding the pointer blocks.
+    * @param pointers The pointer blocks.
+    * @param count The number of pointer blocks in the run.
+    * @param depth The levels of indirection below them, from 1.
+    */
+   private void mapIndirect(Volume volume, int[] pointers, int count, int depth) {
+      long span = 1;
+      for (int i = 0; i < depth; i++) span *= pointersPerBlock;
+      // only the pointer blocks covering the rest of the file are read
+      count = (int)Math.min(count, (numofBlocks - mapped + span - 1) / span);
+      if (count <= 0) return;
+      ByteBuffer[] blocks = volume.readBlocks(Arrays.copyOf(pointers, count), true);
+      
+      int[] children = (depth > 1) ? new int[pointersPerBlock] : null;
+      for (int p = 0; p < count && mapped < numofBlocks; p++) {
+         if (pointers[p] == 0) {
+            this.add(0, (int)Math.min(span, numofBlocks - mapped));
+            continue;
+         }
+         for (int i = 0; i < pointersPerBlock && mapped < numofBlocks; i++) {
+            if (depth == 1) this.add(blocks[p].getInt(i * 4), 1);
+            else children[i] = blocks[p].getInt(i * 4);
+         }
+         if (depth > 1) this.mapIndirect(volume, children, pointersPerBlock, depth - 1);
+      }
+   }
+   
+   /**
+    * Maps the next logical blocks, extending the last extent if they follow
+    * on from it physically.
+    *
+    * @param physical The first physical block, or 0 for a hole.
+    * @param count The number of blocks.
+    */
+   private void add(int physical, int count) {
+      count = Math.min(count, numofBlocks - mapped);
+      if (count <= 0) return;
+      int last = numofExtents - 1;
+      if (last >= 0 && ((physical == 0 && physicalStarts[last] == 0)
+            || (physical != 0 && physicalStarts[last] != 0 && physical == physicalStarts[last] + lengths[last]))) {
+         lengths[last] += count;
+      } else {
+         if (numofExtents == lengths.length) {
+            logicalStarts = Arrays.copyOf(logicalStarts, numofExtents * 2);
+            physicalStarts = Arrays.copyOf(physicalStarts, numofExtents * 2);
+            lengths = Arrays.copyOf(lengths, numofExtents * 2);
+         }
+         logicalStarts[numofExtents] = mapped;
+         physicalStarts[numofExtents] = physical;
+         lengths[numofExtents] = count;
+         numofExtents++;
+      }
+      mapped += count;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param logical The index of the logical block, from 0.
+	 * @return The physical block, or 0 if the block is a hole.
+	 */
+   public int getPhysical(int logical) {
+      int extent = this.getExtent(logical);
+      if (extent == -1 || physicalStarts[extent] == 0) return 0;
+      return physicalStarts[extent] + (logical - logicalStarts[extent]);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param logical The index of the logical block, from 0.
+	 * @return The index of the extent holding the block, or -1.
+	 */
+   public int getExtent(int logical) {
+      if (logical < 0 || logical >= mapped) return -1;
+      int lo = 0, hi = numofExtents - 1;
+      while (lo < hi) {
+         int mid = (lo + hi + 1) >>> 1;
+         if (logicalStarts[mid] <= logical) lo = mid;
+         else hi = mid - 1;
+      }
+      return lo;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of logical blocks in the file.
+	 */
+   public int getNumofBlocks() {
+      return mapped;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of extents.
+	 */
+   public int getNumofExtents() {
+      return numofExtents;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param extent The index of the extent.
+	 * @return The first logical block of the extent.
+	 */
+   public int getLogicalStart(int extent) {
+      return logicalStarts[extent];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param extent The index of the extent.
+	 * @return The first physical block of the extent, or 0 for a hole.
+	 */
+   public int getPhysicalStart(int extent) {
+      return physicalStarts[extent];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param extent The index of the extent.
+	 * @return The number of blocks in the extent.
+	 */
+   public int getLength(int extent) {
+      return lengths[extent];
+   }
+}
@@ -20,54 +20,55 @@
  * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
  ******************************************************************************/
 
+package benix;
+
 /**
- ** This class represents a Ext2 file.
+ ** This class represents a CLOCK (second-chance) eviction policy.
  **/
 
 /**
  **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
  **   @version 0.8
  **/
-public class Ext2File {
-   public final int BLOCK_SIZE = 1024;
-   
-   private Block[] content;
+public class ClockPolicy implements EvictionPolicy {
+   private boolean[] filled;
+   private boolean[] referenced;
+   private int hand;
    
    /**
     **   Constructor method.
     **
-    **   @param blocks The array of Blocks containing the file.
-    **   @param debug Whether debug mode is active or not.
+    **   @param numofSlots The number of slots in the cache.
     **/
-   public Ext2File(Block[] blocks, boolean debug) {
-      this.content = new Block[blocks.length];
-      for(int i = 0; i < blocks.length; i++) {
-         this.content[i] = blocks[i];
-      }
-      
-      if (debug) {
-         System.out.println("-----Values read from file-----");
-         for(int i = 0; i < this.content.length; i++)
-            this.content[i].hexDump();
-         System.out.println("-------------------------------------");
-      }
+   public ClockPolicy(int numofSlots) {
+      this.filled = new boolean[numofSlots];
+      this.referenced = new boolean[numofSlots];
    }
    
-	/**
-	 *	Accessor function.
-    *
-    * @param num The Index of the block.
-	 * @return The Block.
-	 */
-   public Block getBlock(int num) {
-      return content[--num];
+   public void onInsert(int slot) {
+      filled[slot] = true;
+      referenced[slot] = false;
    }
-        
-   /**
-    **   Prints a formatted hex dump of the block's contents.
-    **/
-   public void hexDump() {
-      for(int i = 0; i < this.content.length; i++)
-         this.content[i].hexDump();
+   
+   public void onAccess(int slot) {
+      referenced[slot] = true;
+   }
+   
+   public void onRemove(int slot) {
+      filled[slot] = false;
+      referenced[slot] = false;
+   }
+   
+   public int victim() {
+      // sweeps at most twice round: once clearing reference bits, once more
+      // to find a slot whose bit is now clear
+      for (int i = 0; i < 2 * filled.length; i++) {
+         int slot = hand;
+         hand = (hand + 1) % filled.length;
+         if (!filled[slot]) continue;
+         if (!referenced[slot]) return slot;
+         referenced[slot] = false;
+      }
+      return -1;
    }
 }
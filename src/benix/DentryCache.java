@@ -0,0 +1,215 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a bounded cache of directory entries, mapping a
+ ** parent directory's inode and a name to the child's inode. Names known
+ ** not to exist are cached too, as negative entries.
+ **
+ ** Entries are indexed by a hash of the parent and name; two entries whose
+ ** hashes collide simply evict each other. Like BlockCache, the cache may be
+ ** split into independently locked stripes.
+ **/
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class DentryCache {
+   public static final int MISSING = 0, NEGATIVE = -1;
+   
+   private DentryCache[] stripes;
+   private IntSlotMap index;
+   private EvictionPolicy policy;
+   private int[] hashes;
+   private int[] parents;
+   private String[] names;
+   private int[] children;
+   private int numofFilled;
+   private long hits, negativeHits, misses, evictions;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param maxEntries The most entries the cache may hold.
+    **/
+   public DentryCache(int maxEntries) {
+      this(maxEntries, 1);
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param maxEntries The most entries the cache may hold.
+    **   @param numofStripes The number of independently locked stripes, a
+    **          power of two.
+    **/
+   public DentryCache(int maxEntries, int numofStripes) {
+      if (numofStripes > 1) {
+         this.stripes = new DentryCache[numofStripes];
+         for (int i = 0; i < numofStripes; i++)
+            this.stripes[i] = new DentryCache(Math.max(1, maxEntries / numofStripes), 1);
+         return;
+      }
+      this.index = new IntSlotMap(maxEntries);
+      this.policy = new ClockPolicy(maxEntries);
+      this.hashes = new int[maxEntries];
+      this.parents = new int[maxEntries];
+      this.names = new String[maxEntries];
+      this.children = new int[maxEntries];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param parent The inode of the parent directory.
+    * @param name The name of the entry.
+	 * @return The child's inode, NEGATIVE if the name is known not to exist, 
+    *         or MISSING if it is not cached.
+	 */
+   public int get(int parent, String name) {
+      int hash = hash(parent, name);
+      if (stripes != null) return stripes[stripe(hash)].get(parent, name);
+      synchronized (this) {
+         return this.lookup(hash, parent, name);
+      }
+   }
+   
+   private int lookup(int hash, int parent, String name) {
+      int slot = index.get(hash);
+      if (slot == IntSlotMap.NO_SLOT || parents[slot] != parent || !names[slot].equals(name)) {
+         misses++;
+         return MISSING;
+      }
+      policy.onAccess(slot);
+      if (children[slot] == NEGATIVE) negativeHits++;
+      else hits++;
+      return children[slot];
+   }
+   
+   /**
+    * Caches an entry, evicting another if the cache is full.
+    *
+    * @param parent The inode of the parent directory.
+    * @param name The name of the entry.
+    * @param child The child's inode, or NEGATIVE if there is none.
+    */
+   public void put(int parent, String name, int child) {
+      int hash = hash(parent, name);
+      if (stripes != null) {
+         stripes[stripe(hash)].put(parent, name, child);
+         return;
+      }
+      synchronized (this) {
+         this.insert(hash, parent, name, child);
+      }
+   }
+   
+   private void insert(int hash, int parent, String name, int child) {
+      int slot = index.get(hash);
+      if (slot == IntSlotMap.NO_SLOT) {
+         if (numofFilled < children.length) {
+            slot = numofFilled++;
+         } else {
+            slot = policy.victim();
+            policy.onRemove(slot);
+            index.remove(hashes[slot]);
+            evictions++;
+         }
+         hashes[slot] = hash;
+         index.put(hash, slot);
+         policy.onInsert(slot);
+      } else {
+         policy.onAccess(slot);
+      }
+      parents[slot] = parent;
+      names[slot] = name;
+      children[slot] = child;
+   }
+   
+   private static int hash(int parent, String name) {
+      return name.hashCode() * 31 + parent * 0x9E3779B9;
+   }
+   
+   private int stripe(int hash) {
+      // takes the top bits, as the slot index already uses the bottom ones
+      return (hash * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(stripes.length - 1);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of lookups that found a child.
+	 */
+   public long getHits() {
+      if (stripes != null) {
+         long sum = 0;
+         for (DentryCache stripe : stripes) sum += stripe.getHits();
+         return sum;
+      }
+      return this.hits;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of lookups that found a negative entry.
+	 */
+   public long getNegativeHits() {
+      if (stripes != null) {
+         long sum = 0;
+         for (DentryCache stripe : stripes) sum += stripe.getNegativeHits();
+         return sum;
+      }
+      return this.negativeHits;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of lookups that found nothing cached.
+	 */
+   public long getMisses() {
+      if (stripes != null) {
+         long sum = 0;
+         for (DentryCache stripe : stripes) sum += stripe.getMisses();
+         return sum;
+      }
+      return this.misses;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of entries evicted to make room for others.
+	 */
+   public long getEvictions() {
+      if (stripes != null) {
+         long sum = 0;
+         for (DentryCache stripe : stripes) sum += stripe.getEvictions();
+         return sum;
+      }
+      return this.evictions;
+   }
+}
@@ -0,0 +1,164 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class computes the name hashes that order the entries of hashed
+ ** (htree) directories, as the ext2 dir_index feature defines them.
+ **/
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class DirHash {
+   public static final int LEGACY = 0, HALF_MD4 = 1, TEA = 2,
+                           LEGACY_UNSIGNED = 3, HALF_MD4_UNSIGNED = 4, TEA_UNSIGNED = 5;
+   
+   /**
+    * Hashes a name.
+    *
+    * @param name The name's bytes.
+    * @param version The hash version, from the directory's index root.
+    * @param seed The four-word hash seed from the superblock.
+    * @return The major hash, with its lowest bit clear.
+    */
+   public static int hash(byte[] name, int version, int[] seed) {
+      int[] buf = { 0x67452301, 0xEFCDAB89, 0x98BADCFE, 0x10325476 };
+      if (seed[0] != 0 || seed[1] != 0 || seed[2] != 0 || seed[3] != 0)
+         System.arraycopy(seed, 0, buf, 0, 4);
+      boolean unsigned = version >= LEGACY_UNSIGNED;
+      int hash;
+      
+      switch (version % 3) {
+         case HALF_MD4: {
+            int[] in = new int[8];
+            for (int p = 0; p < name.length; p += 32) {
+               toHashBuf(name, p, name.length - p, in, 8, unsigned);
+               halfMD4Transform(buf, in);
+            }
+            hash = buf[1];
+            break;
+         }
+         case TEA: {
+            int[] in = new int[4];
+            for (int p = 0; p < name.length; p += 16) {
+               toHashBuf(name, p, name.length - p, in, 4, unsigned);
+               teaTransform(buf, in);
+            }
+            hash = buf[0];
+            break;
+         }
+         default:
+            hash = legacyHash(name, unsigned);
+      }
+      hash &= ~1;
+      // the largest hash is reserved to mark the end of a directory
+      return (hash == 0xFFFFFFFE) ? 0xFFFFFFFC : hash;
+   }
+   
+   private static int legacyHash(byte[] name, boolean unsigned) {
+      int hash, hash0 = 0x12A3FE2D, hash1 = 0x37ABE8F9;
+      for (byte b : name) {
+         int c = unsigned ? (b & 0xFF) : b;
+         hash = hash1 + (hash0 ^ (c * 7152373));
+         if ((hash & 0x80000000) != 0) hash -= 0x7FFFFFFF;
+         hash1 = hash0;
+         hash0 = hash;
+      }
+      return hash0 << 1;
+   }
+   
+   /**
+    * Packs up to num words of the name, padded with its length, into in.
+    */
+   private static void toHashBuf(byte[] name, int offset, int length, int[] in, int num, boolean unsigned) {
+      int pad = length | (length << 8);
+      pad |= pad << 16;
+      int val = pad, w = 0;
+      length = Math.min(length, num * 4);
+      for (int i = 0; i < length; i++) {
+         int c = unsigned ? (name[offset + i] & 0xFF) : name[offset + i];
+         val = c + (val << 8);
+         if ((i % 4) == 3) {
+            in[w++] = val;
+            val = pad;
+         }
+      }
+      if (w < num) in[w++] = val;
+      while (w < num) in[w++] = pad;
+   }
+   
+   private static void teaTransform(int[] buf, int[] in) {
+      int sum = 0, b0 = buf[0], b1 = buf[1];
+      int a = in[0], b = in[1], c = in[2], d = in[3];
+      for (int n = 0; n < 16; n++) {
+         sum += 0x9E3779B9;
+         b0 += ((b1 << 4) + a) ^ (b1 + sum) ^ ((b1 >>> 5) + b);
+         b1 += ((b0 << 4) + c) ^ (b0 + sum) ^ ((b0 >>> 5) + d);
+      }
+      buf[0] += b0;
+      buf[1] += b1;
+   }
+   
+   private static void halfMD4Transform(int[] buf, int[] in) {
+      final int K2 = 013240474631, K3 = 015666365641;
+      int a = buf[0], b = buf[1], c = buf[2], d = buf[3];
+      
+      a = Integer.rotateLeft(a + f(b, c, d) + in[0],  3);
+      d = Integer.rotateLeft(d + f(a, b, c) + in[1],  7);
+      c = Integer.rotateLeft(c + f(d, a, b) + in[2], 11);
+      b = Integer.rotateLeft(b + f(c, d, a) + in[3], 19);
+      a = Integer.rotateLeft(a + f(b, c, d) + in[4],  3);
+      d = Integer.rotateLeft(d + f(a, b, c) + in[5],  7);
+      c = Integer.rotateLeft(c + f(d, a, b) + in[6], 11);
+      b = Integer.rotateLeft(b + f(c, d, a) + in[7], 19);
+      
+      a = Integer.rotateLeft(a + g(b, c, d) + in[1] + K2,  3);
+      d = Integer.rotateLeft(d + g(a, b, c) + in[3] + K2,  5);
+      c = Integer.rotateLeft(c + g(d, a, b) + in[5] + K2,  9);
+      b = Integer.rotateLeft(b + g(c, d, a) + in[7] + K2, 13);
+      a = Integer.rotateLeft(a + g(b, c, d) + in[0] + K2,  3);
+      d = Integer.rotateLeft(d + g(a, b, c) + in[2] + K2,  5);
+      c = Integer.rotateLeft(c + g(d, a, b) + in[4] + K2,  9);
+      b = Integer.rotateLeft(b + g(c, d, a) + in[6] + K2, 13);
+      
+      a = Integer.rotateLeft(a + h(b, c, d) + in[3] + K3,  3);
+      d = Integer.rotateLeft(d + h(a, b, c) + in[7] + K3,  9);
+      c = Integer.rotateLeft(c + h(d, a, b) + in[2] + K3, 11);
+      b = Integer.rotateLeft(b + h(c, d, a) + in[6] + K3, 15);
+      a = Integer.rotateLeft(a + h(b, c, d) + in[1] + K3,  3);
+      d = Integer.rotateLeft(d + h(a, b, c) + in[5] + K3,  9);
+      c = Integer.rotateLeft(c + h(d, a, b) + in[0] + K3, 11);
+      b = Integer.rotateLeft(b + h(c, d, a) + in[4] + K3, 15);
+      
+      buf[0] += a;
+      buf[1] += b;
+      buf[2] += c;
+      buf[3] += d;
+   }
+   
+   private static int f(int x, int y, int z) { return z ^ (x & (y ^ z)); }
+   private static int g(int x, int y, int z) { return (x & y) + ((x ^ y) & z); }
+   private static int h(int x, int y, int z) { return x ^ y ^ z; }
+}
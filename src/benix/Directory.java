@@ -0,0 +1,441 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a directory. Its entries are parsed once, into
+ ** primitive arrays indexed by file number (from 1), with an open-addressing
+ ** hash index from names to file numbers. Directories with a hashed (htree)
+ ** index can also look a name up by descending the index to the one leaf
+ ** block that can hold it, without parsing the rest. Parsing is done under
+ ** the directory's lock, after which it may be read by any number of threads.
+ **/
+ 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Directory extends Ext2File {
+   public final int INODE_FIELD_SIZE = 4, LENGTH_FIELD_SIZE = 2,
+                    NAME_LENGTH_FIELD_SIZE = 1, TYPE_INDICATOR_FIELD_SIZE = 1,
+                    LENGTH_FIELD_OFFSET = 4, NAME_LENGTH_FIELD_OFFSET = 6, TYPE_INDICATOR_FIELD_OFFSET = 7, NAME_FIELD_OFFSET = 8;
+   
+   private volatile boolean parsed;
+   private boolean indexed;
+   private int[] hashSeed = new int[4];
+   private boolean hashUnsigned;
+   private int numofFiles;
+   private int[] fileBlocks = new int[16];
+   private int[] offsets = new int[16];
+   private int[] inodePointers = new int[16];
+   private short[] lengths = new short[16];
+   private byte[] nameLengths = new byte[16];
+   private byte[] typeIndicators = new byte[16];
+   private int[] nameOffsets = new int[16];
+   private byte[] names = new byte[256];
+   private int namesLength;
+   // file numbers by name hash; 0 marks an empty bucket
+   private int[] nameIndex;
+   
+   /**
+    **   Constructor method. The block size is taken from the first Block, so
+    **   there must be at least one.
+    **
+    **   @param content The array of Blocks containing the file.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Directory(Block[] content, boolean debug) {
+      super(content, debug);
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param content The array of Blocks containing the file.
+    **   @param blockSize The volume's block size in bytes.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Directory(Block[] content, int blockSize, boolean debug) {
+      super(content, blockSize, debug);
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param content The array of Blocks containing the file.
+    **   @param superBlock The volume's superblock, for the name hash seed.
+    **   @param indexed Whether the directory has a hashed (htree) index.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Directory(Block[] content, SuperBlock superBlock, boolean indexed, boolean debug) {
+      super(content, superBlock.getBlockSize(), debug);
+      this.setIndex(superBlock, indexed);
+   }
+   
+   /**
+    **   Constructor method. Blocks are fetched from the volume as they are
+    **   asked for, so a hashed lookup reads only the blocks it descends
+    **   through, and the pointer blocks mapping them.
+    **
+    **   @param volume The volume holding the directory.
+    **   @param inode The directory's inode.
+    **   @param superBlock The volume's superblock, for the name hash seed.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Directory(Volume volume, Inode inode, SuperBlock superBlock, boolean debug) {
+      super(volume, inode, inode.isIndexed(), debug);
+      this.setIndex(superBlock, inode.isIndexed());
+   }
+   
+   private void setIndex(SuperBlock superBlock, boolean indexed) {
+      this.indexed = indexed;
+      for (int i = 0; i < 4; i++) this.hashSeed[i] = superBlock.getHashSeed(i);
+      this.hashUnsigned = superBlock.isHashUnsigned();
+   }
+   
+   /**
+    * Parses every block of the directory the first time an entry is asked
+    * for.
+    */
+   private void parse() {
+      if (parsed) return;
+      synchronized (this) {
+         if (parsed) return;
+         Block[] blocks = this.getBlocks();
+         for (int b = 1; b <= blocks.length; b++) this.parseBlock(blocks[b - 1], b);
+         this.buildNameIndex();
+         parsed = true;
+      }
+   }
+   
+   /**
+    * Parses the entries of a directory block, following each entry's length
+    * to the next. Entries with no inode are unused (or, in hashed
+    * directories, hide index data) and are skipped.
+    *
+    * @param block The directory block.
+    * @param blockNum The index of the directory block.
+    */
+   private void parseBlock(Block block, int blockNum) {
+      int offset = 0;
+      while (offset + NAME_FIELD_OFFSET <= block.length()) {
+         int length = block.getShort(offset + LENGTH_FIELD_OFFSET) & 0xFFFF;
+         if (length < NAME_FIELD_OFFSET) break;
+         int inode = block.getInt(offset);
+         if (inode != 0) this.addEntry(block, blockNum, offset, inode, (short)length);
+         offset += length;
+      }
+   }
+   
+   private void addEntry(Block block, int blockNum, int offset, int inode, short length) {
+      if (numofFiles == offsets.length) {
+         int capacity = numofFiles * 2;
+         fileBlocks = Arrays.copyOf(fileBlocks, capacity);
+         offsets = Arrays.copyOf(offsets, capacity);
+         inodePointers = Arrays.copyOf(inodePointers, capacity);
+         lengths = Arrays.copyOf(lengths, capacity);
+         nameLengths = Arrays.copyOf(nameLengths, capacity);
+         typeIndicators = Arrays.copyOf(typeIndicators, capacity);
+         nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+      }
+      int nameLength = block.get(offset + NAME_LENGTH_FIELD_OFFSET) & 0xFF;
+      if (namesLength + nameLength > names.length)
+         names = Arrays.copyOf(names, Math.max(names.length * 2, namesLength + nameLength));
+      for (int i = 0; i < nameLength; i++)
+         names[namesLength + i] = block.get(offset + NAME_FIELD_OFFSET + i);
+      
+      fileBlocks[numofFiles] = blockNum;
+      offsets[numofFiles] = offset;
+      inodePointers[numofFiles] = inode;
+      lengths[numofFiles] = length;
+      nameLengths[numofFiles] = (byte)nameLength;
+      typeIndicators[numofFiles] = block.get(offset + TYPE_INDICATOR_FIELD_OFFSET);
+      nameOffsets[numofFiles] = namesLength;
+      namesLength += nameLength;
+      numofFiles++;
+   }
+   
+   /**
+    * Builds the name index, sized to keep it at most half full.
+    */
+   private void buildNameIndex() {
+      nameIndex = new int[Integer.highestOneBit(Math.max(2, numofFiles) * 2 - 1) << 1];
+      int mask = nameIndex.length - 1;
+      for (int i = 0; i < numofFiles; i++) {
+         int bucket = hash(names, nameOffsets[i], nameLengths[i] & 0xFF) & mask;
+         while (nameIndex[bucket] != 0) bucket = (bucket + 1) & mask;
+         nameIndex[bucket] = i + 1;
+      }
+   }
+   
+   private static int hash(byte[] bytes, int offset, int length) {
+      // FNV-1a
+      int h = 0x811C9DC5;
+      for (int i = offset; i < offset + length; i++) h = (h ^ bytes[i]) * 0x01000193;
+      return h ^ (h >>> 16);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param fileName The name of the file.
+	 * @return The index of the file, or -1 if there is none.
+	 */
+   public int getFileNum(String fileName) {
+      this.parse();
+      byte[] name = fileName.getBytes(StandardCharsets.UTF_8);
+      int mask = nameIndex.length - 1;
+      for (int bucket = hash(name, 0, name.length) & mask; nameIndex[bucket] != 0; bucket = (bucket + 1) & mask) {
+         int i = nameIndex[bucket] - 1;
+         if ((nameLengths[i] & 0xFF) == name.length
+               && Arrays.equals(names, nameOffsets[i], nameOffsets[i] + name.length, name, 0, name.length))
+            return i + 1;
+      }
+      return -1;
+   } 
+   
+	/**
+	 *	Accessor function. In a hashed directory only the index blocks on the
+    * way to the name, and the one leaf block they lead to, are read.
+    *
+    * @param fileName The name of the file.
+	 * @return The file's inode pointer, or -1 if there is none.
+	 */
+   public int lookup(String fileName) {
+      Volume volume = this.getVolume();
+      if (!VolumeStats.ENABLED || volume == null) return this.find(fileName);
+      long start = System.nanoTime();
+      int inode = this.find(fileName);
+      volume.getStats().lookups.record(System.nanoTime() - start);
+      return inode;
+   }
+   
+   private int find(String fileName) {
+      if (!indexed || parsed) {
+         int fileNum = this.getFileNum(fileName);
+         return (fileNum != -1) ? this.getInodePointer(fileNum) : -1;
+      }
+      return this.lookupIndexed(fileName.getBytes(StandardCharsets.UTF_8));
+   }
+   
+   /**
+    * Descends the htree: a binary search of each index node for the last
+    * entry whose hash is no greater than the name's, then a scan of the leaf
+    * block it points to. Names whose hashes collide may spill into the
+    * following leaves, which are scanned while their index entry carries the
+    * same hash, climbing back up the tree as the kernel does when a leaf 
+    * is the last of its index node.
+    */
+   private int lookupIndexed(byte[] name) {
+      Block root = this.getBlock(1);
+      // "." and ".." are only ever in the first block, outside the index
+      if (name.length > 0 && name.length <= 2 && name[0] == '.' && (name.length == 1 || name[1] == '.'))
+         return this.scanBlock(root, name);
+      // the index root hides inside the ".." entry, after "."
+      int infoOffset = NAME_FIELD_OFFSET + 4 + NAME_FIELD_OFFSET + 4;
+      int hashVersion = root.get(infoOffset + 4) & 0xFF;
+      if (hashUnsigned && hashVersion <= DirHash.TEA) hashVersion += DirHash.LEGACY_UNSIGNED;
+      int levels = root.get(infoOffset + 6) & 0xFF;
+      int hash = DirHash.hash(name, hashVersion, hashSeed);
+      
+      // the path down the tree: each level's node, where its entries 
+      // start, and the entry followed
+      Block[] nodes = new Block[levels + 1];
+      int[] entries = new int[levels + 1], at = new int[levels + 1];
+      nodes[0] = root;
+      entries[0] = infoOffset + (root.get(infoOffset + 5) & 0xFF);
+      for (int level = 0; level <= levels; level++) {
+         Block node = nodes[level];
+         // entry 0 holds the count and limit in place of a hash
+         int lo = 1, hi = this.getCount(node, entries[level]) - 1;
+         while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Integer.compareUnsigned(node.getInt(entries[level] + mid * 8), hash) <= 0) lo = mid + 1;
+            else hi = mid - 1;
+         }
+         at[level] = lo - 1;
+         if (level < levels) {
+            nodes[level + 1] = this.getBlock(this.getChild(node, entries[level], at[level]) + 1);
+            // index nodes start with an empty entry spanning the block
+            entries[level + 1] = NAME_FIELD_OFFSET;
+         }
+      }
+      
+      for (;;) {
+         int inode = this.scanBlock(this.getBlock(this.getChild(nodes[levels], entries[levels], at[levels]) + 1), name);
+         if (inode != -1) return inode;
+         // the next leaf is under the deepest node with an entry left...
+         int level = levels;
+         while (level >= 0 && at[level] + 1 >= this.getCount(nodes[level], entries[level])) level--;
+         if (level < 0) return -1;
+         at[level]++;
+         if ((nodes[level].getInt(entries[level] + at[level] * 8) & ~1) != hash) return -1;
+         // ...down the left edge of the subtree its next entry leads to
+         for (; level < levels; level++) {
+            nodes[level + 1] = this.getBlock(this.getChild(nodes[level], entries[level], at[level]) + 1);
+            entries[level + 1] = NAME_FIELD_OFFSET;
+            at[level + 1] = 0;
+         }
+      }
+   }
+   
+   private int getCount(Block node, int entries) {
+      return node.getShort(entries + 2) & 0xFFFF;
+   }
+   
+   private int getChild(Block node, int entries, int at) {
+      return node.getInt(entries + at * 8 + 4) & 0x0FFFFFFF;
+   }
+   
+   /**
+    * Scans one directory block for a name without parsing it.
+    */
+   private int scanBlock(Block block, byte[] name) {
+      int offset = 0;
+      while (offset + NAME_FIELD_OFFSET <= block.length()) {
+         int length = block.getShort(offset + LENGTH_FIELD_OFFSET) & 0xFFFF;
+         if (length < NAME_FIELD_OFFSET) break;
+         if (block.getInt(offset) != 0 && (block.get(offset + NAME_LENGTH_FIELD_OFFSET) & 0xFF) == name.length) {
+            int i = 0;
+            while (i < name.length && block.get(offset + NAME_FIELD_OFFSET + i) == name[i]) i++;
+            if (i == name.length) return block.getInt(offset);
+         }
+         offset += length;
+      }
+      return -1;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param fileNum The index of the file.
+	 * @return The index of the block holding the file's entry.
+	 */
+   public int getFileBlock(int fileNum) {
+      this.parse();
+      return fileBlocks[fileNum - 1];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param fileNum The index of the file.
+	 * @return The offset of the file's entry within its block.
+	 */
+   public int getFileOffset(int fileNum) {
+      this.parse();
+      return offsets[fileNum - 1];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of files in the directory.
+	 */
+   public int getNumofFiles() {
+      this.parse();
+      return numofFiles;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param fileNum The index of the file.
+	 * @return The inode pointer of the file.
+	 */
+   public int getInodePointer(int fileNum) { 
+      this.parse();
+      return inodePointers[fileNum - 1];
+   }
+    
+	/**
+	 *	Accessor function.
+    *
+    * @param fileNum The index of the file.
+	 * @return The length of the file.
+	 */
+   public short getLength(int fileNum) { 
+      this.parse();
+      return lengths[fileNum - 1];
+   }
+    
+	/**
+	 *	Accessor function.
+    *
+    * @param fileNum The index of the file.
+	 * @return The length of the name of the file.
+	 */
+   public byte getNameLength(int fileNum) { 
+      this.parse();
+      return nameLengths[fileNum - 1];
+   }
+    
+	/**
+	 *	Accessor function.
+    *
+    * @param fileNum The index of the file.
+	 * @return The type character of the file.
+	 */
+   public char getType(int fileNum) {
+      switch(this.getTypeIndicator(fileNum)) {
+         case 1: return '-';
+         case 2: return 'd';
+         default: return ' ';
+      }
+   }
+    
+	/**
+	 *	Accessor function.
+    *
+    * @param fileNum The index of the file.
+	 * @return The type indicator of the file.
+	 */
+   public byte getTypeIndicator(int fileNum) { 
+      this.parse();
+      return typeIndicators[fileNum - 1];
+   }
+    
+	/**
+	 *	Accessor function.
+    *
+    * @param fileNum The index of the file.
+	 * @return The name of the file.
+	 */
+   public String getName(int fileNum) { 
+      this.parse();
+      return new String(names, nameOffsets[fileNum - 1], nameLengths[fileNum - 1] & 0xFF, StandardCharsets.UTF_8);
+   }
+   
+   /**
+    * Prints the directory listing.
+    */
+   public void listDir() {
+      for(int i = 1; i <= this.getNumofFiles(); i++) {
+        System.out.println(this.getType(i) + "\t" + this.getLength(i) + "\t" + this.getNameLength(i) + "\t" + this.getTypeIndicator(i) + "\t" + this.getName(i));
+         
+      }
+   }
+}
@@ -20,40 +20,43 @@
  * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
  ******************************************************************************/
 
+package benix;
+
 /**
- ** This class represents a group descriptor block.
+ ** This interface represents the eviction policy of a cache whose entries
+ ** live in numbered slots.
  **/
 
-import java.nio.ByteBuffer;
-import java.lang.StringBuffer;
-
 /**
  **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
  **   @version 0.8
  **/
-final public class GroupDesc extends Block { 
+public interface EvictionPolicy {
+   /**
+    * Records that a slot has been filled.
+    *
+    * @param slot The slot.
+    */
+   void onInsert(int slot);
+   
    /**
-    **   Constructor method.
-    **
-    **   @param groupDesc The block byte dump.
-    **   @param debug Whether debug mode is active or not.
-    **/
-   public GroupDesc(ByteBuffer groupDesc, boolean debug) {
-      super(groupDesc, false);
-      
-      if (debug) {
-         System.out.println("-----Values read from group desc-----");
-         System.out.println("Inode Table Pointer: " + getInodeTablePointer());
-         System.out.println("-------------------------------------");
-      }
-   }
+    * Records that a slot has been read.
+    *
+    * @param slot The slot.
+    */
+   void onAccess(int slot);
+   
+   /**
+    * Records that a slot has been emptied.
+    *
+    * @param slot The slot.
+    */
+   void onRemove(int slot);
    
 	/**
 	 *	Accessor function.
     *
-	 * @return The inode table pointer of the block group.
+	 * @return The filled slot that should be evicted next.
 	 */
-   public int getInodeTablePointer() {
-      return block.getInt(8);
-   }
+   int victim();
 }
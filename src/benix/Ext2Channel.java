@@ -0,0 +1,93 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a ReadableByteChannel over an Ext2File. It holds
+ ** only the Block it is reading from, so its memory use does not grow with
+ ** the file.
+ **/
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Ext2Channel implements ReadableByteChannel {
+   private Ext2File file;
+   private int blockSize;
+   private long position;
+   private Block block;
+   private int blockNum;
+   private boolean open = true;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param file The file to read.
+    **/
+   public Ext2Channel(Ext2File file) {
+      this.file = file;
+      this.blockSize = file.getBlockSize();
+   }
+   
+   public int read(ByteBuffer dst) throws ClosedChannelException {
+      if (!open) throw new ClosedChannelException();
+      if (position >= file.getLength()) return -1;
+      int read = 0;
+      while (dst.hasRemaining() && position < file.getLength()) {
+         int num = (int)(position / blockSize) + 1;
+         if (num != blockNum) {
+            block = file.getSequentialBlock(num);
+            blockNum = num;
+         }
+         int inBlock = (int)(position % blockSize);
+         int n = (int)Math.min(Math.min(dst.remaining(), blockSize - inBlock), file.getLength() - position);
+         block.get(inBlock, dst, n);
+         position += n;
+         read += n;
+      }
+      return read;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The offset of the next byte to be read.
+	 */
+   public long position() {
+      return position;
+   }
+   
+   public boolean isOpen() {
+      return open;
+   }
+   
+   public void close() {
+      open = false;
+      block = null;
+   }
+}
@@ -0,0 +1,358 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a Ext2 file. A file is either given all of its
+ ** Blocks up front, or is backed by its volume and inode and fetches each
+ ** Block only when it is asked for, so that it can be streamed in constant
+ ** memory. A file backed by its volume watches the order its Blocks are
+ ** asked for in: while they run in sequence it has the volume prefetch a
+ ** window of the blocks ahead, doubling the window each time the reader
+ ** gets halfway through it, and a jump elsewhere collapses the window.
+ **/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Ext2File {
+   // read-ahead window bounds, in bytes
+   public final int MIN_READ_AHEAD = 4 << 10, MAX_READ_AHEAD = 128 << 10;
+   
+   private Block[] content;
+   private Volume volume;
+   private Inode inode;
+   // built on first use when the file is opened for random access only
+   private volatile BlockMap map;
+   private long length;
+   private int blockSize;
+   // the last block asked for, the current window, and the end of what has
+   // been prefetched so far
+   private int lastBlock = -1, window, prefetchedTo;
+   
+   /**
+    **   Constructor method. The block size is taken from the first Block, so
+    **   there must be at least one.
+    **
+    **   @param blocks The array of Blocks containing the file.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Ext2File(Block[] blocks, boolean debug) {
+      this(blocks, blockSizeOf(blocks), debug);
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param blocks The array of Blocks containing the file.
+    **   @param blockSize The volume's block size in bytes.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Ext2File(Block[] blocks, int blockSize, boolean debug) {
+      this.content = blocks;
+      this.blockSize = blockSize;
+      this.length = (long)blocks.length * blockSize;
+      
+      if (debug) {
+         System.out.println("-----Values read from file-----");
+         this.hexDump();
+         System.out.println("-------------------------------------");
+      }
+   }
+   
+   /**
+    **   Constructor method. Only the block map is read; Blocks are fetched
+    **   from the volume as they are asked for.
+    **
+    **   @param volume The volume holding the file.
+    **   @param inode The file's inode.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public Ext2File(Volume volume, Inode inode, boolean debug) {
+      this(volume, inode, false, debug);
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param volume The volume holding the file.
+    **   @param inode The file's inode.
+    **   @param lazy Whether to put off reading the block map until more 
+    **          than single blocks are asked for, each of which is then 
+    **          mapped through its own pointer blocks alone.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   Ext2File(Volume volume, Inode inode, boolean lazy, boolean debug) {
+      this.volume = volume;
+      this.inode = inode;
+      this.blockSize = volume.getBlockSize();
+      if (!lazy) this.map = volume.getBlockMap(inode);
+      this.length = inode.getFileSize();
+      
+      if (debug) {
+         System.out.println("-----Values read from file-----");
+         this.hexDump();
+         System.out.println("-------------------------------------");
+      }
+   }
+   
+   static int blockSizeOf(Block[] blocks) {
+      if (blocks.length == 0) throw new IllegalArgumentException("an empty file's block size must be given");
+      return blocks[0].length();
+   }
+   
+	/**
+	 *	Accessor function. Random access: nothing is prefetched, so that (for
+    * one) a hashed directory lookup reads only the blocks it descends 
+    * through.
+    *
+    * @param num The Index of the block.
+	 * @return The Block.
+	 */
+   public Block getBlock(int num) {
+      if (content != null) return content[--num];
+      
+      BlockMap map = this.map;
+      int physical = (map != null) ? map.getPhysical(--num) : BlockMap.getPhysical(volume, inode, --num);
+      return new Block((physical != 0) ? volume.getBlock(physical, inode.isDirectory()) : volume.getHole(), false);
+   }
+   
+	/**
+	 *	Accessor function. For the streams and channels that read the file in
+    * order: in stream mode, a regular file's blocks ahead are prefetched as
+    * the reader keeps up a sequential pattern.
+    *
+    * @param num The Index of the block.
+	 * @return The Block.
+	 */
+   Block getSequentialBlock(int num) {
+      if (content == null && volume.getReadAhead() != null && !inode.isDirectory()) this.readAhead(num - 1);
+      return this.getBlock(num);
+   }
+        
+   /**
+    * Grows or collapses the read-ahead window for an access to a block, and
+    * prefetches the next window once half of the last one has been read.
+    *
+    * @param num The index of the block, from 0.
+    */
+   private synchronized void readAhead(int num) {
+      if (num != lastBlock + 1) {
+         window = 0;
+         prefetchedTo = num + 1;
+      } else if (prefetchedTo - num <= window / 2) {
+         window = (window == 0) ? Math.max(1, MIN_READ_AHEAD / blockSize) 
+                                : Math.min(window * 2, Math.max(1, MAX_READ_AHEAD / blockSize));
+         int from = Math.max(prefetchedTo, num + 1);
+         BlockMap map = this.getBlockMap();
+         int to = (int)Math.min((long)num + 1 + window, map.getNumofBlocks());
+         if (to > from) volume.getReadAhead().prefetch(map, from, to - from);
+         prefetchedTo = Math.max(prefetchedTo, to);
+      }
+      lastBlock = num;
+   }
+        
+	/**
+	 *	Accessor function. For files backed by their volume, the blocks not
+    * already cached are fetched together, with one read per run of
+    * physically adjacent blocks.
+    *
+	 * @return The array of Blocks the file covers.
+	 */
+   public Block[] getBlocks() {
+      if (content != null) return content;
+      
+      BlockMap map = this.getBlockMap();
+      int[] ids = new int[map.getNumofBlocks()];
+      for (int i = 0; i < ids.length; i++) ids[i] = map.getPhysical(i);
+      ByteBuffer[] buffers = volume.readBlocks(ids, inode.isDirectory());
+      Block[] blocks = new Block[ids.length];
+      for (int i = 0; i < ids.length; i++) blocks[i] = new Block(buffers[i], false);
+      return blocks;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of blocks the file covers.
+	 */
+   public int getNumofBlocks() {
+      return (content != null) ? content.length : this.getBlockMap().getNumofBlocks();
+   }
+   
+   private BlockMap getBlockMap() {
+      BlockMap map = this.map;
+      if (map != null) return map;
+      synchronized (this) {
+         if (this.map == null) this.map = volume.getBlockMap(inode);
+         return this.map;
+      }
+   }
+        
+	/**
+	 *	Accessor function.
+    *
+	 * @return The size of the file's blocks in bytes.
+	 */
+   public int getBlockSize() {
+      return this.blockSize;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The volume holding the file, or null if it was built from 
+    *         Blocks.
+	 */
+   Volume getVolume() {
+      return this.volume;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The length of the file in bytes.
+	 */
+   public long getLength() {
+      return this.length;
+   }
+   
+   /**
+    * Reads part of the file into a buffer. For files backed by their volume
+    * this is safe to call from many threads at once, and reads straight into
+    * the buffer without staging the data in Blocks.
+    *
+    * @param offset The offset in the file to read from.
+    * @param dst The buffer to read into.
+    * @return The number of bytes read, or -1 if the offset is at or past the
+    *         end of the file.
+    * @throws java.io.UncheckedIOException If the dump cannot be read.
+    */
+   public int read(long offset, ByteBuffer dst) {
+      if (content == null) return volume.read(this.getBlockMap(), length, offset, dst);
+      
+      if (offset >= length) return -1;
+      int total = (int)Math.min(dst.remaining(), length - offset);
+      for (int done = 0; done < total; ) {
+         int inBlock = (int)(offset % blockSize);
+         int n = Math.min(total - done, blockSize - inBlock);
+         content[(int)(offset / blockSize)].get(inBlock, dst, n);
+         offset += n;
+         done += n;
+      }
+      return total;
+   }
+   
+   /**
+    * Copies the whole file to a channel from its current position on. Each
+    * extent of a file backed by its volume is transferred straight from the
+    * dump, and holes are skipped over, leaving the copy sparse where the 
+    * host filesystem allows.
+    *
+    * @param target The channel to write to.
+    * @return The number of bytes copied.
+    */
+   public long transferTo(FileChannel target) throws IOException {
+      long start = target.position();
+      if (content != null) {
+         ByteBuffer buffer = ByteBuffer.allocate(blockSize);
+         for (long offset = 0; this.read(offset, buffer.clear()) > 0; offset += blockSize) {
+            buffer.flip();
+            while (buffer.hasRemaining()) target.write(buffer);
+         }
+         return target.position() - start;
+      }
+      
+      BlockMap map = this.getBlockMap();
+      for (int e = 0; e < map.getNumofExtents(); e++) {
+         long offset = (long)map.getLogicalStart(e) * blockSize;
+         if (offset >= length) break;
+         long bytes = Math.min((long)map.getLength(e) * blockSize, length - offset);
+         if (map.getPhysicalStart(e) == 0) continue;
+         target.position(start + offset);
+         volume.transferTo(map.getPhysicalStart(e), bytes, target);
+      }
+      // a trailing hole still counts towards the length
+      if (length > 0 && target.size() < start + length)
+         target.write(ByteBuffer.allocate(1), start + length - 1);
+      target.position(start + length);
+      return length;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return A stream over the file's bytes, reading one block at a time.
+	 */
+   public InputStream getInputStream() {
+      return new Ext2InputStream(this);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return A channel over the file's bytes, reading one block at a time.
+	 */
+   public ReadableByteChannel getChannel() {
+      return new Ext2Channel(this);
+   }
+        
+   /**
+    **   Prints a formatted hex dump of the file's contents.
+    **/
+   public void hexDump() {
+      try {
+         this.hexDump(System.out, 0, this.length);
+      } catch (IOException ex) {
+         System.out.println("ACK");
+      }
+   }
+   
+   /**
+    **   Writes a hex dump of part of the file, labelled with offsets in the
+    **   file, fetching one block at a time.
+    **
+    **   @param out The stream to write to.
+    **   @param from The offset in the file to start from.
+    **   @param to The offset in the file to stop before.
+    **/
+   public void hexDump(OutputStream out, long from, long to) throws IOException {
+      HexDumpWriter writer = new HexDumpWriter(out);
+      to = Math.min(to, this.length);
+      while (from < to) {
+         int inBlock = (int)(from % blockSize);
+         int n = (int)Math.min(blockSize - inBlock, to - from);
+         this.getSequentialBlock((int)(from / blockSize) + 1).hexDump(writer, inBlock, inBlock + n, from);
+         from += n;
+      }
+      writer.flush();
+   }
+}
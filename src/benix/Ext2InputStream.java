@@ -0,0 +1,115 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents an InputStream over an Ext2File. It holds only the
+ ** Block it is reading from, so its memory use does not grow with the file.
+ **/
+
+import java.io.InputStream;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Ext2InputStream extends InputStream {
+   private Ext2File file;
+   private int blockSize;
+   private long position, mark;
+   private Block block;
+   private int blockNum;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param file The file to read.
+    **/
+   public Ext2InputStream(Ext2File file) {
+      this.file = file;
+      this.blockSize = file.getBlockSize();
+   }
+   
+	/**
+	 *	Accessor function. Fetches the next Block once the current one is used
+    * up.
+    *
+	 * @return The Block holding the current position.
+	 */
+   private Block currentBlock() {
+      int num = (int)(position / blockSize) + 1;
+      if (num != blockNum) {
+         block = file.getSequentialBlock(num);
+         blockNum = num;
+      }
+      return block;
+   }
+   
+   public int read() {
+      if (position >= file.getLength()) return -1;
+      int val = currentBlock().get((int)(position % blockSize)) & 0xFF;
+      position++;
+      return val;
+   }
+   
+   public int read(byte[] dst, int offset, int length) {
+      if (length == 0) return 0;
+      if (position >= file.getLength()) return -1;
+      int read = 0;
+      while (read < length && position < file.getLength()) {
+         int inBlock = (int)(position % blockSize);
+         int n = (int)Math.min(Math.min(length - read, blockSize - inBlock), file.getLength() - position);
+         currentBlock().get(inBlock, dst, offset + read, n);
+         position += n;
+         read += n;
+      }
+      return read;
+   }
+   
+   public long skip(long n) {
+      long skipped = Math.max(0, Math.min(n, file.getLength() - position));
+      position += skipped;
+      return skipped;
+   }
+   
+   public int available() {
+      return (int)Math.min(Integer.MAX_VALUE, file.getLength() - position);
+   }
+   
+   public boolean markSupported() {
+      return true;
+   }
+   
+   public void mark(int readLimit) {
+      mark = position;
+   }
+   
+   public void reset() {
+      position = mark;
+   }
+   
+   public void close() {
+      block = null;
+      blockNum = 0;
+   }
+}
@@ -0,0 +1,210 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a bulk extractor, which copies a volume's directory
+ ** tree out to a host directory. The tree is walked on the calling thread,
+ ** creating each directory as it goes, while regular files are copied on a
+ ** bounded pool of workers, each extent transferred straight from the dump.
+ ** Progress is printed every second, and the totals once the copy is done.
+ **/
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Extractor {
+   public final int TYPE_FILE = 1, TYPE_DIRECTORY = 2;
+   
+   private final Volume volume;
+   private final int numofThreads;
+   private final LongAdder files = new LongAdder(), bytes = new LongAdder(), failures = new LongAdder();
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param volume The volume to extract from.
+    **   @param numofThreads The most files to copy at once.
+    **/
+   public Extractor(Volume volume, int numofThreads) {
+      this.volume = volume;
+      this.numofThreads = numofThreads;
+   }
+   
+   /**
+    * Copies a directory of the volume, and everything under it, into a host
+    * directory, returning once every file has been copied.
+    *
+    * @param path The path of the directory, from the root directory.
+    * @param target The host directory to copy into, created if need be.
+    */
+   public void extract(String path, Path target) throws IOException, InterruptedException {
+      ExecutorService workers = Executors.newFixedThreadPool(numofThreads);
+      // keeps the walk from queueing more files than the workers can take
+      Semaphore slots = new Semaphore(numofThreads * 2);
+      ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+      long start = System.nanoTime();
+      progress.scheduleAtFixedRate(() -> this.report(start), 1, 1, TimeUnit.SECONDS);
+      try {
+         this.walk(path, target, workers, slots);
+      } finally {
+         workers.shutdown();
+         workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+         progress.shutdownNow();
+      }
+      this.report(start);
+   }
+   
+   /**
+    * Creates a directory's host copy and queues each file in it.
+    */
+   private void walk(String path, Path target, ExecutorService workers, Semaphore slots) throws IOException, InterruptedException {
+      Directory dir = volume.getDirectory(path);
+      if (dir == null) throw new IOException(path + ": no such directory");
+      Files.createDirectories(target);
+      
+      for (int i = 1; i <= dir.getNumofFiles(); i++) {
+         String name = dir.getName(i);
+         if (name.equals(".") || name.equals("..")) continue;
+         String childPath = path.endsWith("/") ? path + name : path + "/" + name;
+         // a corrupt or crafted entry must not write outside the target
+         if (name.isEmpty() || name.indexOf('/') >= 0 || name.indexOf('\0') >= 0) {
+            System.err.println(childPath + ": skipped, not a valid file name");
+            failures.increment();
+            continue;
+         }
+         Path childTarget = target.resolve(name);
+         if (!childTarget.normalize().startsWith(target.normalize())) {
+            System.err.println(childPath + ": skipped, would be copied outside " + target);
+            failures.increment();
+            continue;
+         }
+         
+         int type = dir.getTypeIndicator(i);
+         if (type == 0) {
+            // a volume without file types in its entries
+            Ext2File file = volume.open(childPath);
+            type = (file instanceof Directory) ? TYPE_DIRECTORY : TYPE_FILE;
+         }
+         if (type == TYPE_DIRECTORY) {
+            this.walk(childPath, childTarget, workers, slots);
+         } else if (type == TYPE_FILE) {
+            slots.acquire();
+            workers.execute(() -> {
+               try {
+                  this.copy(childPath, childTarget);
+               } finally {
+                  slots.release();
+               }
+            });
+         }
+      }
+   }
+   
+   /**
+    * Copies one regular file.
+    */
+   private void copy(String path, Path target) {
+      try {
+         Ext2File file = volume.open(path);
+         if (file == null) throw new IOException("no such file");
+         try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, 
+                                                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            bytes.add(file.transferTo(out));
+         }
+         files.increment();
+      } catch (IOException | RuntimeException ex) {
+         // one bad file must not end the extraction, nor go unreported
+         System.err.println(path + ": not copied, " + ex);
+         failures.increment();
+      }
+   }
+   
+   /**
+    * Prints the files and bytes copied so far, and the rates since the
+    * extraction began.
+    */
+   private void report(long start) {
+      double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+      long numofFiles = files.sum();
+      double megabytes = bytes.sum() / (1024.0 * 1024.0);
+      System.out.printf("%,d files (%d failed), %.1f MB in %.1fs: %.0f files/s, %.1f MB/s%n", 
+                        numofFiles, failures.sum(), megabytes, seconds, numofFiles / seconds, megabytes / seconds);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of files copied.
+	 */
+   public long getFilesCopied() {
+      return files.sum();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of bytes copied.
+	 */
+   public long getBytesCopied() {
+      return bytes.sum();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of files that could not be copied.
+	 */
+   public long getFailures() {
+      return failures.sum();
+   }
+   
+   /**
+	 **   Extracts a dump's tree.
+	 **
+	 **   @param args The dump, the host directory to copy into, and optionally
+    **          the number of files to copy at once.
+	 **/
+   public static void main(String[] args) throws IOException, InterruptedException {
+      if (args.length < 2) {
+         System.out.println("Usage: java benix.Extractor <dump> <directory> [threads]");
+         return;
+      }
+      int numofThreads = (args.length > 2) ? Integer.parseInt(args[2]) : 4 * Runtime.getRuntime().availableProcessors();
+      new Extractor(new Volume(args[0]), numofThreads).extract("/", Paths.get(args[1]));
+   }
+}
@@ -0,0 +1,122 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a group descriptor block.
+ **/
+
+import java.nio.ByteBuffer;
+import java.lang.StringBuffer;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+final public class GroupDesc extends Block { 
+   public static final int DESC_SIZE = 32;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param groupDesc The block byte dump.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public GroupDesc(ByteBuffer groupDesc, boolean debug) {
+      this(groupDesc, 0, debug);
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param groupDesc The block byte dump.
+    **   @param index The index of the descriptor within the block; only that
+    **          descriptor is viewed.
+    **   @param debug Whether debug mode is active or not.
+    **/
+   public GroupDesc(ByteBuffer groupDesc, int index, boolean debug) {
+      super(groupDesc, index * DESC_SIZE, DESC_SIZE, false);
+      
+      if (debug) {
+         System.out.println("-----Values read from group desc-----");
+         System.out.println("Block Bitmap Pointer: " + getBlockBitmapPointer());
+         System.out.println("Inode Bitmap Pointer: " + getInodeBitmapPointer());
+         System.out.println("Inode Table Pointer: " + getInodeTablePointer());
+         System.out.println("-------------------------------------");
+      }
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The block bitmap pointer of the block group.
+	 */
+   public int getBlockBitmapPointer() {
+      return block.getInt(0);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The inode bitmap pointer of the block group.
+	 */
+   public int getInodeBitmapPointer() {
+      return block.getInt(4);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The inode table pointer of the block group.
+	 */
+   public int getInodeTablePointer() {
+      return block.getInt(8);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of free blocks in the block group.
+	 */
+   public int getNumofFreeBlocks() {
+      return block.getShort(12) & 0xFFFF;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of free inodes in the block group.
+	 */
+   public int getNumofFreeInodes() {
+      return block.getShort(14) & 0xFFFF;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of directories in the block group.
+	 */
+   public int getNumofUsedDirs() {
+      return block.getShort(16) & 0xFFFF;
+   }
+}
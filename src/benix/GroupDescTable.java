@@ -0,0 +1,144 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents the whole group descriptor table, which follows the
+ ** superblock and may span several blocks. It is parsed once, into one
+ ** primitive array per field indexed by block group, so that finding any
+ ** group's inode table or bitmaps is a single array read.
+ **/
+
+import java.nio.ByteBuffer;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class GroupDescTable {
+   private final int[] blockBitmaps;
+   private final int[] inodeBitmaps;
+   private final int[] inodeTables;
+   private final int[] freeBlocks;
+   private final int[] freeInodes;
+   private final int[] usedDirs;
+   
+   /**
+    **   Constructor method. Reads every block of the table.
+    **
+    **   @param volume The volume holding the table.
+    **   @param superBlock The volume's superblock.
+    **   @param blockSize The size of a block in bytes.
+    **/
+   public GroupDescTable(Volume volume, SuperBlock superBlock, int blockSize) {
+      int numofGroups = superBlock.getNumofBlockGroups();
+      this.blockBitmaps = new int[numofGroups];
+      this.inodeBitmaps = new int[numofGroups];
+      this.inodeTables = new int[numofGroups];
+      this.freeBlocks = new int[numofGroups];
+      this.freeInodes = new int[numofGroups];
+      this.usedDirs = new int[numofGroups];
+      
+      int descsPerBlock = blockSize / GroupDesc.DESC_SIZE;
+      ByteBuffer block = null;
+      for (int g = 0; g < numofGroups; g++) {
+         if (g % descsPerBlock == 0) block = volume.getBlock(superBlock.getFirstDataBlock() + 1 + g / descsPerBlock, true);
+         GroupDesc desc = new GroupDesc(block, g % descsPerBlock, false);
+         this.blockBitmaps[g] = desc.getBlockBitmapPointer();
+         this.inodeBitmaps[g] = desc.getInodeBitmapPointer();
+         this.inodeTables[g] = desc.getInodeTablePointer();
+         this.freeBlocks[g] = desc.getNumofFreeBlocks();
+         this.freeInodes[g] = desc.getNumofFreeInodes();
+         this.usedDirs[g] = desc.getNumofUsedDirs();
+      }
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param group The index of the block group.
+	 * @return The block bitmap pointer of the block group.
+	 */
+   public int getBlockBitmapPointer(int group) {
+      return blockBitmaps[group];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param group The index of the block group.
+	 * @return The inode bitmap pointer of the block group.
+	 */
+   public int getInodeBitmapPointer(int group) {
+      return inodeBitmaps[group];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param group The index of the block group.
+	 * @return The inode table pointer of the block group.
+	 */
+   public int getInodeTablePointer(int group) {
+      return inodeTables[group];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param group The index of the block group.
+	 * @return The number of free blocks the descriptor records.
+	 */
+   public int getNumofFreeBlocks(int group) {
+      return freeBlocks[group];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param group The index of the block group.
+	 * @return The number of free inodes the descriptor records.
+	 */
+   public int getNumofFreeInodes(int group) {
+      return freeInodes[group];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param group The index of the block group.
+	 * @return The number of directories the descriptor records.
+	 */
+   public int getNumofUsedDirs(int group) {
+      return usedDirs[group];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of block groups.
+	 */
+   public int size() {
+      return inodeTables.length;
+   }
+}
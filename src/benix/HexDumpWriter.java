@@ -0,0 +1,163 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a hex dump writer. Each line of 16 bytes is built
+ ** straight into a reusable batch buffer from lookup tables, and the batch 
+ ** is written out whenever it fills, so a dump of any size costs no more 
+ ** than a handful of writes and allocates nothing per byte or line.
+ **
+ ** Lines look like:
+ **   00000400  48 65 6C 6C 6F 2C 20 77 | 6F 72 6C 64 21 0A 00 00 |  | H e l l o ,   w | o r l d ! . . . | 
+ **/
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class HexDumpWriter {
+   public static final int BYTES_PER_LINE = 16;
+   public static final int BATCH_SIZE = 64 << 10;
+   
+   // two hex digits for every byte value, and the character shown for it
+   private static final byte[] HEX_PAIRS = new byte[512];
+   private static final byte[] PRINTABLE = new byte[256];
+   private static final byte[] DIGITS = "0123456789ABCDEF".getBytes();
+   static {
+      for (int i = 0; i < 256; i++) {
+         HEX_PAIRS[i * 2] = DIGITS[i >>> 4];
+         HEX_PAIRS[i * 2 + 1] = DIGITS[i & 0xF];
+         PRINTABLE[i] = (byte)((i > 31 && i < 126) ? i : '.');
+      }
+   }
+   // the longest line: a 16-digit offset, the hex and ASCII columns, newline
+   private static final int MAX_LINE = 16 + 2 + BYTES_PER_LINE * 3 + 4 + 3 + BYTES_PER_LINE * 2 + 4 + 1;
+   
+   private final OutputStream stream;
+   private final WritableByteChannel channel;
+   private final byte[] batch = new byte[BATCH_SIZE];
+   private int length;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param out The stream to write the dump to.
+    **/
+   public HexDumpWriter(OutputStream out) {
+      this.stream = out;
+      this.channel = null;
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param out The channel to write the dump to.
+    **/
+   public HexDumpWriter(WritableByteChannel out) {
+      this.stream = null;
+      this.channel = out;
+   }
+   
+   /**
+    * Dumps part of a buffer, reading it by absolute index so that its 
+    * position is left alone. A short last line is padded out.
+    *
+    * @param src The buffer to dump.
+    * @param from The index in the buffer to start from.
+    * @param to The index in the buffer to stop before.
+    * @param offset The offset to label the first line with.
+    */
+   public void write(ByteBuffer src, int from, int to, long offset) throws IOException {
+      to = Math.min(to, src.limit());
+      for (int index = from; index < to; index += BYTES_PER_LINE, offset += BYTES_PER_LINE) {
+         if (length + MAX_LINE > batch.length) this.drain();
+         this.writeLine(src, index, Math.min(BYTES_PER_LINE, to - index), offset);
+      }
+   }
+   
+   private void writeLine(ByteBuffer src, int index, int count, long offset) {
+      byte[] line = batch;
+      int at = length;
+      // offsets past 4GB widen the column to 16 digits
+      for (int shift = (offset >>> 32 != 0) ? 60 : 28; shift >= 0; shift -= 4)
+         line[at++] = DIGITS[(int)(offset >>> shift) & 0xF];
+      line[at++] = ' ';
+      line[at++] = ' ';
+      
+      for (int i = 0; i < BYTES_PER_LINE; i++) {
+         if (i < count) {
+            int val = src.get(index + i) & 0xFF;
+            line[at++] = HEX_PAIRS[val * 2];
+            line[at++] = HEX_PAIRS[val * 2 + 1];
+         } else {
+            line[at++] = ' ';
+            line[at++] = ' ';
+         }
+         line[at++] = ' ';
+         if (i % 8 == 7) {
+            line[at++] = '|';
+            line[at++] = ' ';
+         }
+      }
+      line[at++] = ' ';
+      line[at++] = '|';
+      line[at++] = ' ';
+      for (int i = 0; i < BYTES_PER_LINE; i++) {
+         line[at++] = (i < count) ? PRINTABLE[src.get(index + i) & 0xFF] : (byte)' ';
+         line[at++] = ' ';
+         if (i % 8 == 7) {
+            line[at++] = '|';
+            line[at++] = ' ';
+         }
+      }
+      line[at++] = '\n';
+      length = at;
+   }
+   
+   /**
+    * Writes out the batch so far.
+    */
+   private void drain() throws IOException {
+      if (stream != null) {
+         stream.write(batch, 0, length);
+      } else {
+         ByteBuffer buffer = ByteBuffer.wrap(batch, 0, length);
+         while (buffer.hasRemaining()) channel.write(buffer);
+      }
+      length = 0;
+   }
+   
+   /**
+    * Writes out the batch so far, and flushes the stream if there is one.
+    */
+   public void flush() throws IOException {
+      this.drain();
+      if (stream != null) stream.flush();
+   }
+}
@@ -0,0 +1,625 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a generator of synthetic ext2 dumps, laid out as
+ ** SuperBlock, GroupDesc, Inode and Directory read them. The tree is a full
+ ** directory tree of the given depth and fan-out, with the files spread
+ ** evenly over its directories. Files are sized from a log-uniform 
+ ** distribution, and large files get indirect, double- and triple-indirect
+ ** blocks as they need them. A fragmentation level makes block allocation
+ ** skip ahead, so that files are split into many extents.
+ **
+ ** Everything about a dump, down to the bytes of each file, follows from
+ ** the settings and the seed. Directories are numbered breadth first: 
+ ** directory k holds subdirectories "d0".."d<fanOut-1>", which are 
+ ** directories k*fanOut+1 on, and then its files "f0", "f1" and so on. The
+ ** dump is written in one pass without holding the tree in memory, and
+ ** unwritten blocks are left as holes in the host file, so dumps of many
+ ** gigabytes with millions of inodes are quick to make.
+ **/
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class ImageGenerator {
+   public static final int INODE_SIZE = 128, ROOT_INODE = 2, FIRST_INODE = 11, LOST_AND_FOUND = 11;
+   public static final int NAME_FIELD_OFFSET = 8;
+   public static final int DIR_MODE = 0x41ED, FILE_MODE = 0x81A4;
+   public static final int TYPE_FILE = 1, TYPE_DIRECTORY = 2;
+   // every timestamp, so that the dump depends on nothing but its settings
+   public static final int TIME = 1420070400;
+   // the furthest a fragmented allocation skips ahead, and the longest run
+   // it lays down between skips
+   public static final int MAX_SKIP = 32, MAX_EXTENT = 64;
+   
+   private long seed;
+   private int numofGroups = 4;
+   private int blockSize = 1024;
+   private int requestedInodesPerGroup;
+   private int numofFiles = 100;
+   private int depth = 1, fanOut = 4;
+   private long minFileSize = 0, maxFileSize = 64 << 10;
+   private double fragmentation;
+   private boolean fillData = true;
+   
+   // geometry, worked out when generating
+   private int blocksPerGroup, firstDataBlock, gdtBlocks, inodesPerGroup, tableBlocks, numofDirs;
+   private FileChannel out;
+   private Random random;
+   private byte[][] blockBitmaps, inodeBitmaps;
+   private int[] usedDirs;
+   private long cursor;
+   // blocks left in the current extent
+   private int extentLeft;
+   private ByteBuffer table;
+   private int tableGroup = -1;
+   private ByteBuffer block;
+   private boolean largeFiles;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param seed The seed everything about the dump follows from.
+    **/
+   public ImageGenerator(long seed) {
+      this.seed = seed;
+   }
+   
+   /**
+    * Sets the number of block groups, each of 8 blocks per byte of a block.
+    */
+   public ImageGenerator setNumofGroups(int numofGroups) {
+      if (numofGroups < 1) throw new IllegalArgumentException("numofGroups: " + numofGroups);
+      this.numofGroups = numofGroups;
+      return this;
+   }
+   
+   /**
+    * Sets the block size: 1024, 2048 or 4096.
+    */
+   public ImageGenerator setBlockSize(int blockSize) {
+      if (blockSize != 1024 && blockSize != 2048 && blockSize != 4096) 
+         throw new IllegalArgumentException("blockSize: " + blockSize);
+      this.blockSize = blockSize;
+      return this;
+   }
+   
+   /**
+    * Sets the number of inodes per group, or 0 for just enough for the
+    * tree.
+    */
+   public ImageGenerator setInodesPerGroup(int inodesPerGroup) {
+      this.requestedInodesPerGroup = inodesPerGroup;
+      return this;
+   }
+   
+   /**
+    * Sets the number of regular files.
+    */
+   public ImageGenerator setNumofFiles(int numofFiles) {
+      if (numofFiles < 0) throw new IllegalArgumentException("numofFiles: " + numofFiles);
+      this.numofFiles = numofFiles;
+      return this;
+   }
+   
+   /**
+    * Sets the shape of the directory tree: how many levels of directories
+    * there are below the root, and how many subdirectories each has.
+    */
+   public ImageGenerator setTree(int depth, int fanOut) {
+      if (depth < 0 || fanOut < 0 || (depth > 0 && fanOut == 0)) 
+         throw new IllegalArgumentException("depth: " + depth + ", fanOut: " + fanOut);
+      this.depth = depth;
+      this.fanOut = fanOut;
+      return this;
+   }
+   
+   /**
+    * Sets the range file sizes are drawn from, log-uniformly, in bytes.
+    */
+   public ImageGenerator setFileSizes(long minFileSize, long maxFileSize) {
+      if (minFileSize < 0 || maxFileSize < minFileSize) 
+         throw new IllegalArgumentException("file sizes: " + minFileSize + " to " + maxFileSize);
+      this.minFileSize = minFileSize;
+      this.maxFileSize = maxFileSize;
+      return this;
+   }
+   
+   /**
+    * Sets the chance, from 0 to 1, that an extent starts up to MAX_SKIP 
+    * free blocks past the end of the last. Extents are from 1 to MAX_EXTENT
+    * blocks long, and each file starts a new one.
+    */
+   public ImageGenerator setFragmentation(double fragmentation) {
+      if (fragmentation < 0 || fragmentation > 1) throw new IllegalArgumentException("fragmentation: " + fragmentation);
+      this.fragmentation = fragmentation;
+      return this;
+   }
+   
+   /**
+    * Sets whether file data is written, or left as zeroes (and holes in the
+    * host file) to make huge dumps faster.
+    */
+   public ImageGenerator setFillData(boolean fillData) {
+      this.fillData = fillData;
+      return this;
+   }
+   
+   /**
+    * Writes the dump.
+    *
+    * @param path The file to write, replaced if it exists.
+    */
+   public void generate(Path path) throws IOException {
+      this.layOut();
+      this.random = new Random(seed);
+      this.blockBitmaps = new byte[numofGroups][blockSize];
+      this.inodeBitmaps = new byte[numofGroups][blockSize];
+      this.usedDirs = new int[numofGroups];
+      this.block = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+      this.cursor = firstDataBlock;
+      this.extentLeft = 0;
+      this.tableGroup = -1;
+      this.largeFiles = false;
+      
+      try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+         file.setLength(0);
+         file.setLength(((long)firstDataBlock + (long)numofGroups * blocksPerGroup) * blockSize);
+         this.out = file.getChannel();
+         
+         for (int g = 0; g < numofGroups; g++) this.reserveMetadata(g);
+         // inodes 1 to 10 are reserved, and stay zeroed
+         for (int id = 1; id < FIRST_INODE; id++) this.markInode(id);
+         
+         for (int k = 0; k < numofDirs; k++) {
+            this.writeDirectory(k);
+            if (k == 0) this.writeLostAndFound();
+         }
+         for (int j = 0; j < numofFiles; j++) this.writeFile(FIRST_INODE + numofDirs + j);
+         this.flushTable();
+         
+         for (int g = 0; g < numofGroups; g++) this.writeGroupMetadata(g);
+      } finally {
+         this.out = null;
+      }
+   }
+   
+   /**
+    * Works out the geometry of the dump from the settings.
+    */
+   private void layOut() {
+      blocksPerGroup = 8 * blockSize;
+      firstDataBlock = (blockSize == 1024) ? 1 : 0;
+      gdtBlocks = (numofGroups * GroupDesc.DESC_SIZE + blockSize - 1) / blockSize;
+      
+      long dirs = 1, level = 1;
+      for (int l = 0; l < depth; l++) {
+         level *= fanOut;
+         dirs += level;
+         if (dirs > Integer.MAX_VALUE / 2) throw new IllegalArgumentException("too many directories");
+      }
+      numofDirs = (int)dirs;
+      
+      // the root is inode 2 and lost+found 11; the other directories follow
+      long numofInodes = FIRST_INODE + numofDirs + (long)numofFiles;
+      int perBlock = blockSize / INODE_SIZE;
+      int ipg = requestedInodesPerGroup;
+      if (ipg == 0) ipg = (int)Math.min(Integer.MAX_VALUE, (numofInodes + numofGroups - 1) / numofGroups);
+      // whole blocks of the inode table, and whole bytes of the bitmap
+      int unit = Math.max(perBlock, 8);
+      ipg = Math.max(unit, (ipg + unit - 1) / unit * unit);
+      if (ipg > 8 * blockSize || (long)ipg * numofGroups < numofInodes)
+         throw new IllegalArgumentException(numofInodes + " inodes do not fit in " + numofGroups + " groups");
+      inodesPerGroup = ipg;
+      tableBlocks = ipg / perBlock;
+   }
+   
+   private long groupStart(int group) {
+      return firstDataBlock + (long)group * blocksPerGroup;
+   }
+   
+   /**
+    * Whether a group holds a copy of the superblock and group descriptor
+    * table: with sparse superblocks, only groups 0, 1 and powers of 3, 5 
+    * and 7 do.
+    */
+   private boolean hasSuperBlock(int group) {
+      if (group <= 1) return true;
+      for (int base : new int[] {3, 5, 7}) {
+         long power = base;
+         while (power < group) power *= base;
+         if (power == group) return true;
+      }
+      return false;
+   }
+   
+   private long blockBitmap(int group) {
+      return groupStart(group) + (hasSuperBlock(group) ? 1 + gdtBlocks : 0);
+   }
+   
+   private long dataStart(int group) {
+      return blockBitmap(group) + 2 + tableBlocks;
+   }
+   
+   private void reserveMetadata(int group) {
+      long start = groupStart(group), end = dataStart(group);
+      if (end > start + blocksPerGroup) throw new IllegalArgumentException("block groups too small for their metadata");
+      for (long b = start; b < end; b++) this.markBlock(b);
+   }
+   
+   private void markBlock(long id) {
+      int index = (int)(id - firstDataBlock);
+      blockBitmaps[index / blocksPerGroup][(index % blocksPerGroup) >>> 3] |= 1 << (index & 7);
+   }
+   
+   private void markInode(int id) {
+      int index = id - 1;
+      inodeBitmaps[index / inodesPerGroup][(index % inodesPerGroup) >>> 3] |= 1 << (index & 7);
+   }
+   
+   /**
+    * Allocates the next free block. If the dump is to be fragmented, each
+    * new extent may first skip ahead.
+    */
+   private long allocate() {
+      if (fragmentation > 0 && extentLeft-- <= 0) {
+         extentLeft = random.nextInt(MAX_EXTENT);
+         if (random.nextDouble() < fragmentation) cursor += 1 + random.nextInt(MAX_SKIP);
+      }
+      for (;;) {
+         int group = (int)((cursor - firstDataBlock) / blocksPerGroup);
+         if (group >= numofGroups) throw new IllegalStateException("the volume is full");
+         if (cursor < dataStart(group)) cursor = dataStart(group);
+         else break;
+      }
+      this.markBlock(cursor);
+      return cursor++;
+   }
+   
+   private void write(ByteBuffer buffer, long position) throws IOException {
+      buffer.rewind();
+      while (buffer.hasRemaining()) position += out.write(buffer, position);
+   }
+   
+   /**
+    * Writes a directory, its entries packed into blocks, and its inode.
+    *
+    * @param k The directory's breadth-first index; 0 is the root.
+    */
+   private void writeDirectory(int k) throws IOException {
+      int id = directoryInode(k);
+      int parent = (k == 0) ? id : directoryInode((k - 1) / Math.max(1, fanOut));
+      BlockList blocks = new BlockList();
+      int subdirs = 0;
+      
+      int at = this.addEntry(blocks, 0, id, ".", TYPE_DIRECTORY);
+      at = this.addEntry(blocks, at, parent, "..", TYPE_DIRECTORY);
+      if (k == 0) {
+         at = this.addEntry(blocks, at, LOST_AND_FOUND, "lost+found", TYPE_DIRECTORY);
+         subdirs++;
+      }
+      for (int i = 0; i < fanOut; i++) {
+         long child = (long)k * fanOut + 1 + i;
+         if (child >= numofDirs) break;
+         at = this.addEntry(blocks, at, directoryInode((int)child), "d" + i, TYPE_DIRECTORY);
+         subdirs++;
+      }
+      int first = this.firstFile(k), last = this.firstFile(k + 1);
+      for (int j = first; j < last; j++) 
+         at = this.addEntry(blocks, at, FIRST_INODE + numofDirs + j, "f" + (j - first), TYPE_FILE);
+      this.finishBlock(blocks, at);
+      
+      this.writeInode(id, DIR_MODE, (long)blocks.size * blockSize, 2 + subdirs, blocks);
+      usedDirs[(id - 1) / inodesPerGroup]++;
+   }
+   
+   /**
+    * Writes lost+found, empty but for "." and "..".
+    */
+   private void writeLostAndFound() throws IOException {
+      BlockList blocks = new BlockList();
+      int at = this.addEntry(blocks, 0, LOST_AND_FOUND, ".", TYPE_DIRECTORY);
+      at = this.addEntry(blocks, at, directoryInode(0), "..", TYPE_DIRECTORY);
+      this.finishBlock(blocks, at);
+      this.writeInode(LOST_AND_FOUND, DIR_MODE, blockSize, 2, blocks);
+      usedDirs[(LOST_AND_FOUND - 1) / inodesPerGroup]++;
+   }
+   
+   private int directoryInode(int k) {
+      return (k == 0) ? ROOT_INODE : FIRST_INODE + k;
+   }
+   
+   /**
+    * The index of the first file in directory k; the files are spread as
+    * evenly as they go.
+    */
+   private int firstFile(int k) {
+      int each = numofFiles / numofDirs, extra = numofFiles % numofDirs;
+      return k * each + Math.min(k, extra);
+   }
+   
+   /**
+    * Adds an entry to the directory block being filled, writing the block 
+    * out and starting another when it will not fit.
+    *
+    * @return The offset of the next entry.
+    */
+   private int addEntry(BlockList blocks, int at, int inode, String name, int type) throws IOException {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      int length = (NAME_FIELD_OFFSET + bytes.length + 3) & ~3;
+      if (at > 0 && at + length > blockSize) {
+         this.finishBlock(blocks, at);
+         at = 0;
+      }
+      if (at == 0) Arrays.fill(block.array(), (byte)0);
+      block.putInt(at, inode);
+      block.putShort(at + 4, (short)length);
+      block.put(at + 6, (byte)bytes.length);
+      block.put(at + 7, (byte)type);
+      block.put(at + NAME_FIELD_OFFSET, bytes);
+      // remembers the last entry, which is stretched to the end of the block
+      blocks.lastEntry = at;
+      return at + length;
+   }
+   
+   private void finishBlock(BlockList blocks, int at) throws IOException {
+      block.putShort(blocks.lastEntry + 4, (short)(blockSize - blocks.lastEntry));
+      long id = this.allocate();
+      blocks.add(id);
+      this.write(block, id * blockSize);
+   }
+   
+   /**
+    * Writes a regular file's data and inode.
+    *
+    * @param id The file's inode.
+    */
+   private void writeFile(int id) throws IOException {
+      long size;
+      double u = random.nextDouble();
+      if (maxFileSize == minFileSize) {
+         size = minFileSize;
+      } else {
+         double lo = Math.log(minFileSize + 1), hi = Math.log(maxFileSize + 1);
+         size = Math.max(minFileSize, Math.min(maxFileSize, (long)Math.exp(lo + u * (hi - lo)) - 1));
+      }
+      if (size >= 1L << 31) largeFiles = true;
+      
+      long numofBlocks = (size + blockSize - 1) / blockSize;
+      if (numofBlocks > Integer.MAX_VALUE) throw new IllegalArgumentException("file too large: " + size);
+      BlockList blocks = new BlockList();
+      Random data = new Random(seed ^ (id * 0x9E3779B97F4A7C15L));
+      extentLeft = 0;
+      for (long b = 0; b < numofBlocks; b++) {
+         long physical = this.allocate();
+         blocks.add(physical);
+         if (!fillData) continue;
+         data.nextBytes(block.array());
+         // the tail of the last block stays zeroed, as a real one would
+         if (b == numofBlocks - 1 && size % blockSize != 0) 
+            Arrays.fill(block.array(), (int)(size % blockSize), blockSize, (byte)0);
+         this.write(block, physical * blockSize);
+      }
+      this.writeInode(id, FILE_MODE, size, 1, blocks);
+   }
+   
+   /**
+    * Writes an inode, and the indirect blocks its block list needs.
+    */
+   private void writeInode(int id, int mode, long size, int links, BlockList blocks) throws IOException {
+      int[] pointers = new int[15];
+      int perBlock = blockSize / 4;
+      long numofIndirect = 0;
+      int next = 0;
+      for (int i = 0; i < BlockMap.NUMOF_DIRECT && next < blocks.size; i++) pointers[i] = (int)blocks.get(next++);
+      for (int depth = 1; depth <= 3 && next < blocks.size; depth++) {
+         long[] written = {0};
+         int[] position = {next};
+         pointers[BlockMap.NUMOF_DIRECT + depth - 1] = (int)this.writeIndirect(blocks, position, depth, perBlock, written);
+         next = position[0];
+         numofIndirect += written[0];
+      }
+      if (next < blocks.size) throw new IllegalArgumentException("file too large for triple-indirect blocks");
+      
+      int group = (id - 1) / inodesPerGroup;
+      if (group != tableGroup) {
+         this.flushTable();
+         tableGroup = group;
+         table = ByteBuffer.allocate(inodesPerGroup * INODE_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      }
+      int at = ((id - 1) % inodesPerGroup) * INODE_SIZE;
+      table.putShort(at, (short)mode);
+      table.putInt(at + 4, (int)size);
+      table.putInt(at + 8, TIME);
+      table.putInt(at + 12, TIME);
+      table.putInt(at + 16, TIME);
+      table.putShort(at + 26, (short)links);
+      table.putInt(at + 28, (int)((blocks.size + numofIndirect) * (blockSize / 512)));
+      for (int i = 0; i < 15; i++) table.putInt(at + 40 + i * 4, pointers[i]);
+      // the upper half of the size, for regular files only
+      if (mode == FILE_MODE) table.putInt(at + 108, (int)(size >>> 32));
+      this.markInode(id);
+   }
+   
+   /**
+    * Allocates and writes a pointer block, and those below it.
+    *
+    * @return The pointer block.
+    */
+   private long writeIndirect(BlockList blocks, int[] position, int depth, int perBlock, long[] written) throws IOException {
+      long id = this.allocate();
+      written[0]++;
+      ByteBuffer pointers = ByteBuffer.allocate(blockSize).order(ByteOrder.LITTLE_ENDIAN);
+      for (int i = 0; i < perBlock && position[0] < blocks.size; i++) {
+         long child = (depth == 1) ? blocks.get(position[0]++) : this.writeIndirect(blocks, position, depth - 1, perBlock, written);
+         pointers.putInt(i * 4, (int)child);
+      }
+      this.write(pointers, id * blockSize);
+      return id;
+   }
+   
+   private void flushTable() throws IOException {
+      if (tableGroup == -1) return;
+      this.write(table, (blockBitmap(tableGroup) + 2) * blockSize);
+      tableGroup = -1;
+   }
+   
+   /**
+    * Writes a group's bitmaps, and its copy of the superblock and group
+    * descriptor table if it has one.
+    */
+   private void writeGroupMetadata(int group) throws IOException {
+      // the bits past the last inode are padding, set as mke2fs sets them
+      for (int i = inodesPerGroup; i < 8 * blockSize; i++) inodeBitmaps[group][i >>> 3] |= 1 << (i & 7);
+      this.write(ByteBuffer.wrap(blockBitmaps[group]), blockBitmap(group) * blockSize);
+      this.write(ByteBuffer.wrap(inodeBitmaps[group]), (blockBitmap(group) + 1) * blockSize);
+      if (!hasSuperBlock(group)) return;
+      
+      ByteBuffer superBlock = this.buildSuperBlock(group);
+      // the primary superblock is always at byte 1024; backups start their
+      // group's first block
+      this.write(superBlock, (group == 0) ? SuperBlock.OFFSET : groupStart(group) * blockSize);
+      this.write(this.buildGroupDescTable(), (groupStart(group) + 1) * blockSize);
+   }
+   
+   private ByteBuffer buildGroupDescTable() {
+      ByteBuffer gdt = ByteBuffer.allocate(gdtBlocks * blockSize).order(ByteOrder.LITTLE_ENDIAN);
+      for (int g = 0; g < numofGroups; g++) {
+         int at = g * GroupDesc.DESC_SIZE;
+         gdt.putInt(at, (int)blockBitmap(g));
+         gdt.putInt(at + 4, (int)blockBitmap(g) + 1);
+         gdt.putInt(at + 8, (int)blockBitmap(g) + 2);
+         gdt.putShort(at + 12, (short)this.freeBlocks(g));
+         gdt.putShort(at + 14, (short)this.freeInodes(g));
+         gdt.putShort(at + 16, (short)usedDirs[g]);
+      }
+      return gdt;
+   }
+   
+   private ByteBuffer buildSuperBlock(int group) {
+      long freeBlocks = 0, freeInodes = 0;
+      for (int g = 0; g < numofGroups; g++) {
+         freeBlocks += this.freeBlocks(g);
+         freeInodes += this.freeInodes(g);
+      }
+      ByteBuffer sb = ByteBuffer.allocate(SuperBlock.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      sb.putInt(0, inodesPerGroup * numofGroups);
+      sb.putInt(4, (int)(firstDataBlock + (long)numofGroups * blocksPerGroup));
+      sb.putInt(12, (int)freeBlocks);
+      sb.putInt(16, (int)freeInodes);
+      sb.putInt(20, firstDataBlock);
+      sb.putInt(24, Integer.numberOfTrailingZeros(blockSize >> 10));
+      sb.putInt(28, Integer.numberOfTrailingZeros(blockSize >> 10));
+      sb.putInt(32, blocksPerGroup);
+      sb.putInt(36, blocksPerGroup);
+      sb.putInt(40, inodesPerGroup);
+      sb.putInt(48, TIME);
+      sb.putShort(54, (short)-1);
+      sb.putShort(56, (short)0xEF53);
+      // cleanly unmounted; continue on errors
+      sb.putShort(58, (short)1);
+      sb.putShort(60, (short)1);
+      sb.putInt(64, TIME);
+      sb.putInt(76, 1);
+      sb.putInt(84, FIRST_INODE);
+      sb.putShort(88, (short)INODE_SIZE);
+      sb.putShort(90, (short)group);
+      // the filetype feature; sparse superblocks, and large files if any
+      sb.putInt(96, 0x2);
+      sb.putInt(100, 0x1 | (largeFiles ? 0x2 : 0));
+      Random uuid = new Random(seed);
+      for (int i = 0; i < 16; i++) sb.put(104 + i, (byte)uuid.nextInt(256));
+      sb.put(120, "benix".getBytes(StandardCharsets.US_ASCII));
+      return sb;
+   }
+   
+   private int freeBlocks(int group) {
+      int used = 0;
+      for (byte b : blockBitmaps[group]) used += Integer.bitCount(b & 0xFF);
+      return blocksPerGroup - used;
+   }
+   
+   private int freeInodes(int group) {
+      int used = 0;
+      for (int i = 0; i < inodesPerGroup; i++) used += (inodeBitmaps[group][i >>> 3] >>> (i & 7)) & 1;
+      return inodesPerGroup - used;
+   }
+   
+   /**
+    * A growable list of block numbers, for one file or directory.
+    */
+   private static class BlockList {
+      private long[] ids = new long[16];
+      private int size;
+      private int lastEntry;
+      
+      void add(long id) {
+         if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+         ids[size++] = id;
+      }
+      
+      long get(int index) {
+         return ids[index];
+      }
+   }
+   
+   /**
+	 **   Generates a dump.
+	 **
+	 **   @param args The file to write, then optionally the seed, number of
+    **          groups, block size, number of files, depth, fan-out, smallest
+    **          and largest file sizes, and fragmentation.
+	 **/
+   public static void main(String[] args) throws IOException {
+      if (args.length < 1) {
+         System.out.println("Usage: java benix.ImageGenerator <dump> [seed] [groups] [blockSize] [files] "
+                            + "[depth] [fanOut] [minSize] [maxSize] [fragmentation]");
+         return;
+      }
+      ImageGenerator generator = new ImageGenerator((args.length > 1) ? Long.parseLong(args[1]) : 0);
+      if (args.length > 2) generator.setNumofGroups(Integer.parseInt(args[2]));
+      if (args.length > 3) generator.setBlockSize(Integer.parseInt(args[3]));
+      if (args.length > 4) generator.setNumofFiles(Integer.parseInt(args[4]));
+      if (args.length > 6) generator.setTree(Integer.parseInt(args[5]), Integer.parseInt(args[6]));
+      if (args.length > 8) generator.setFileSizes(Long.parseLong(args[7]), Long.parseLong(args[8]));
+      if (args.length > 9) generator.setFragmentation(Double.parseDouble(args[9]));
+      
+      long start = System.nanoTime();
+      generator.generate(Paths.get(args[0]));
+      System.out.printf("%s written in %.1fs%n", args[0], (System.nanoTime() - start) / 1e9);
+   }
+}
@@ -20,6 +20,8 @@
  * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
  ******************************************************************************/
 
+package benix;
+
 /**
  ** This class represents an inode.
  **/
@@ -31,8 +33,8 @@ import java.util.Date;
  **/
 public class Inode {
    private short fileMode, uID, gID, hardLinks;
-   private int fileSizeLower, indirectPointer, dIndirectPointer,
-               tIndirectPointer, fileSizeUpper;
+   private int fileSizeLower, sectorCount, indirectPointer, dIndirectPointer,
+               tIndirectPointer, fileACL, fileSizeUpper, flags;
    private Date lastAccessed, creationTime, lastModified, deletionTime;
    private int[] blockPointers = new int[12];
     
@@ -48,18 +50,21 @@ public class Inode {
     **   @param deletionTime The time of deletion.
     **   @param gID The owner group ID.
     **   @param hardLinks The number of hard links to the file.
+    **   @param sectorCount The number of 512-byte sectors the file takes up.
+    **   @param flags The inode flags.
     **   @param blockPointers The twelve block pointers.
     **   @param indirectPointer The indirect block pointer.
     **   @param dIndirectPointer The double indirect block pointer.
     **   @param tIndirectPointer The triple indirect block pointer.
+    **   @param fileACL The extended attribute block pointer.
     **   @param fileSizeUpper The upper 32 bits of the file size.
     **   @param debug Whether debug mode is active or not.
     **/
    public Inode(short fileMode, short uID, int fileSizeLower, int lastAccessed, 
                 int creationTime, int lastModified, int deletionTime, short gID, 
-                short hardLinks, int blockPointers[], int indirectPointer, 
-                int dIndirectPointer, int tIndirectPointer, int fileSizeUpper,
-                boolean debug) {
+                short hardLinks, int sectorCount, int flags, int blockPointers[], 
+                int indirectPointer, int dIndirectPointer, int tIndirectPointer, 
+                int fileACL, int fileSizeUpper, boolean debug) {
       this.fileMode = fileMode;
       this.uID = uID;
       this.fileSizeLower = fileSizeLower;
@@ -69,10 +74,13 @@ public class Inode {
       this.deletionTime = (deletionTime != 0) ? new Date((long)deletionTime * 1000) : null;
       this.gID = gID;
       this.hardLinks = hardLinks;
+      this.sectorCount = sectorCount;
+      this.flags = flags;
       this.blockPointers = blockPointers;
       this.indirectPointer = indirectPointer;
       this.dIndirectPointer = dIndirectPointer;
       this.tIndirectPointer = tIndirectPointer;
+      this.fileACL = fileACL;
       this.fileSizeUpper = fileSizeUpper;
              
       if (debug) {
@@ -97,6 +105,45 @@ public class Inode {
 	/**
 	 *	Accessor function.
     *
+	 * @return The file mode.
+	 */
+   public short getFileMode() {
+      return this.fileMode;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return Whether the inode is a directory.
+	 */
+   public boolean isDirectory() {
+      return (this.fileMode & 0xF000) == 0x4000;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return Whether the inode is a directory with a hashed (htree) index.
+	 */
+   public boolean isIndexed() {
+      return (this.flags & 0x1000) != 0;
+   }
+   
+	/**
+	 *	Accessor function. A fast symlink keeps its target in the block 
+    * pointers, so it has no blocks but (perhaps) its extended attributes'.
+    *
+    * @param blockSize The size of a block in bytes.
+	 * @return Whether the inode is a fast symlink.
+	 */
+   public boolean isFastSymlink(int blockSize) {
+      int attributeSectors = (this.fileACL != 0) ? blockSize / 512 : 0;
+      return (this.fileMode & 0xF000) == 0xA000 && this.sectorCount - attributeSectors == 0;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
     * @param blockID The index of the block.
 	 * @return The block pointer.
 	 */
@@ -104,6 +151,33 @@ public class Inode {
       return this.blockPointers[blockID];
    }
    
+	/**
+	 *	Accessor function.
+    *
+	 * @return The indirect block pointer.
+	 */
+   public int getIndirectPointer() {
+      return this.indirectPointer;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The double indirect block pointer.
+	 */
+   public int getDIndirectPointer() {
+      return this.dIndirectPointer;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The triple indirect block pointer.
+	 */
+   public int getTIndirectPointer() {
+      return this.tIndirectPointer;
+   }
+   
 	/**
 	 *	Accessor function.
     *
@@ -111,5 +185,15 @@ public class Inode {
 	 */
    public int getFileSizeLower() {
       return this.fileSizeLower;
+   }
+   
+	/**
+	 *	Accessor function. Only regular files use the upper 32 bits.
+    *
+	 * @return The filesize.
+	 */
+   public long getFileSize() {
+      long size = this.fileSizeLower & 0xFFFFFFFFL;
+      return ((this.fileMode & 0xF000) == 0x8000) ? size | ((long)this.fileSizeUpper << 32) : size;
    }
 }
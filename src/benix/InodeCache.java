@@ -0,0 +1,189 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a bounded cache of decoded inodes, keyed by inode
+ ** number and evicted by CLOCK. Like BlockCache, it may be split into
+ ** independently locked stripes.
+ **/
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class InodeCache {
+   private InodeCache[] stripes;
+   private IntSlotMap index;
+   private EvictionPolicy policy;
+   private Inode[] inodes;
+   private int[] inodeIDs;
+   private int numofFilled;
+   private long hits, misses, evictions;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param maxInodes The most inodes the cache may hold.
+    **/
+   public InodeCache(int maxInodes) {
+      this(maxInodes, 1);
+   }
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param maxInodes The most inodes the cache may hold.
+    **   @param numofStripes The number of independently locked stripes, a
+    **          power of two.
+    **/
+   public InodeCache(int maxInodes, int numofStripes) {
+      if (numofStripes > 1) {
+         this.stripes = new InodeCache[numofStripes];
+         for (int i = 0; i < numofStripes; i++)
+            this.stripes[i] = new InodeCache(Math.max(1, maxInodes / numofStripes), 1);
+         return;
+      }
+      this.index = new IntSlotMap(maxInodes);
+      this.policy = new ClockPolicy(maxInodes);
+      this.inodes = new Inode[maxInodes];
+      this.inodeIDs = new int[maxInodes];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param id The index of the inode.
+	 * @return The cached Inode, or null if it is not cached.
+	 */
+   public Inode get(int id) {
+      if (stripes != null) return stripes[stripe(id)].get(id);
+      synchronized (this) {
+         return this.lookup(id);
+      }
+   }
+   
+   private Inode lookup(int id) {
+      int slot = index.get(id);
+      if (slot == IntSlotMap.NO_SLOT) {
+         misses++;
+         return null;
+      }
+      hits++;
+      policy.onAccess(slot);
+      return inodes[slot];
+   }
+   
+   /**
+    * Caches an inode, evicting another if the cache is full.
+    *
+    * @param id The index of the inode.
+    * @param inode The Inode.
+    */
+   public void put(int id, Inode inode) {
+      if (stripes != null) {
+         stripes[stripe(id)].put(id, inode);
+         return;
+      }
+      synchronized (this) {
+         this.insert(id, inode);
+      }
+   }
+   
+   private void insert(int id, Inode inode) {
+      int slot = index.get(id);
+      if (slot == IntSlotMap.NO_SLOT) {
+         if (numofFilled < inodes.length) {
+            slot = numofFilled++;
+         } else {
+            slot = policy.victim();
+            policy.onRemove(slot);
+            index.remove(inodeIDs[slot]);
+            evictions++;
+         }
+         inodeIDs[slot] = id;
+         index.put(id, slot);
+         policy.onInsert(slot);
+      } else {
+         policy.onAccess(slot);
+      }
+      inodes[slot] = inode;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of lookups that found their inode.
+	 */
+   public long getHits() {
+      if (stripes != null) {
+         long sum = 0;
+         for (InodeCache stripe : stripes) sum += stripe.getHits();
+         return sum;
+      }
+      return this.hits;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of lookups that did not find their inode.
+	 */
+   public long getMisses() {
+      if (stripes != null) {
+         long sum = 0;
+         for (InodeCache stripe : stripes) sum += stripe.getMisses();
+         return sum;
+      }
+      return this.misses;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of inodes evicted to make room for others.
+	 */
+   public long getEvictions() {
+      if (stripes != null) {
+         long sum = 0;
+         for (InodeCache stripe : stripes) sum += stripe.getEvictions();
+         return sum;
+      }
+      return this.evictions;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The fraction of lookups that found their inode.
+	 */
+   public double getHitRate() {
+      long hits = getHits(), lookups = hits + getMisses();
+      return (lookups == 0) ? 0 : (double)hits / lookups;
+   }
+   
+   private int stripe(int id) {
+      // takes the top bits, as the slot index already uses the bottom ones
+      return (id * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(stripes.length - 1);
+   }
+}
@@ -0,0 +1,256 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a reusable cursor over an inode in an inode table.
+ ** Nothing is decoded until it is asked for, and moving the cursor to another
+ ** inode allocates nothing, so whole inode tables can be walked with one
+ ** cursor.
+ **/
+
+import java.nio.ByteBuffer;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class InodeCursor {
+   private ByteBuffer table;
+   private int offset;
+   
+   /**
+    * Points the cursor at an inode.
+    *
+    * @param table The inode table block holding the inode.
+    * @param offset The offset of the inode within the block.
+    * @return This cursor.
+    */
+   public InodeCursor moveTo(ByteBuffer table, int offset) {
+      this.table = table;
+      this.offset = offset;
+      return this;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The file mode.
+	 */
+   public short getFileMode() {
+      return table.getShort(offset);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return Whether the inode is a directory.
+	 */
+   public boolean isDirectory() {
+      return (getFileMode() & 0xF000) == 0x4000;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return Whether the inode is a regular file.
+	 */
+   public boolean isRegularFile() {
+      return (getFileMode() & 0xF000) == 0x8000;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The owner user ID.
+	 */
+   public short getUID() {
+      return table.getShort(offset + 2);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The lower 32 bits of the filesize.
+	 */
+   public int getFileSizeLower() {
+      return table.getInt(offset + 4);
+   }
+   
+	/**
+	 *	Accessor function. Only regular files use the upper 32 bits.
+    *
+	 * @return The filesize.
+	 */
+   public long getFileSize() {
+      long size = getFileSizeLower() & 0xFFFFFFFFL;
+      return isRegularFile() ? size | ((long)getFileSizeUpper() << 32) : size;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The time of last access, in seconds since the epoch.
+	 */
+   public long getLastAccessed() {
+      return table.getInt(offset + 8) & 0xFFFFFFFFL;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The time of creation, in seconds since the epoch.
+	 */
+   public long getCreationTime() {
+      return table.getInt(offset + 12) & 0xFFFFFFFFL;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The time of last modification, in seconds since the epoch.
+	 */
+   public long getLastModified() {
+      return table.getInt(offset + 16) & 0xFFFFFFFFL;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The time of deletion, in seconds since the epoch, or 0.
+	 */
+   public long getDeletionTime() {
+      return table.getInt(offset + 20) & 0xFFFFFFFFL;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The owner group ID.
+	 */
+   public short getGID() {
+      return table.getShort(offset + 24);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of hard links to the file.
+	 */
+   public short getHardLinks() {
+      return table.getShort(offset + 26);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of 512-byte sectors the file occupies.
+	 */
+   public int getSectorCount() {
+      return table.getInt(offset + 28);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The inode flags.
+	 */
+   public int getFlags() {
+      return table.getInt(offset + 32);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param blockID The index of the block.
+	 * @return The block pointer.
+	 */
+   public int getBlockPointer(int blockID) {
+      return table.getInt(offset + 40 + (blockID * 4));
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The indirect block pointer.
+	 */
+   public int getIndirectPointer() {
+      return table.getInt(offset + 88);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The double indirect block pointer.
+	 */
+   public int getDIndirectPointer() {
+      return table.getInt(offset + 92);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The triple indirect block pointer.
+	 */
+   public int getTIndirectPointer() {
+      return table.getInt(offset + 96);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The upper 32 bits of the filesize.
+	 */
+   public int getFileSizeUpper() {
+      return table.getInt(offset + 108);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param debug Whether debug mode is active or not.
+	 * @return A standalone Inode holding the decoded fields.
+	 */
+   public Inode toInode(boolean debug) {
+      int[] blocks = new int[12];
+      for (int i = 0; i < 12; i++) blocks[i] = getBlockPointer(i);
+      
+      return new Inode( getFileMode(),
+                        getUID(),
+                        getFileSizeLower(),
+                        table.getInt(offset + 8),
+                        table.getInt(offset + 12),
+                        table.getInt(offset + 16),
+                        table.getInt(offset + 20),
+                        getGID(),
+                        getHardLinks(),
+                        getSectorCount(),
+                        getFlags(),
+                        blocks,
+                        getIndirectPointer(),
+                        getDIndirectPointer(),
+                        getTIndirectPointer(),
+                        table.getInt(offset + 104),
+                        getFileSizeUpper(), debug);
+   }
+}
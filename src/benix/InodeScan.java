@@ -0,0 +1,81 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a task scanning a range of the volume's inode 
+ ** tables, numbered as if every block group's table followed on from the
+ ** last. Ranges are halved until they are small enough to scan directly, so
+ ** that idle workers can steal the other halves.
+ **/
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class InodeScan extends RecursiveAction {
+   // table blocks scanned by one task; 8 inodes each on a 1K-block volume
+   public static final int LEAF_BLOCKS = 16;
+   private static final long serialVersionUID = 1L;
+   
+   private final Volume volume;
+   private final InodeVisitor visitor;
+   private final int tableBlocks;
+   private final int from, to;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param volume The volume to scan.
+    **   @param visitor The thread-safe callback for each inode.
+    **   @param tableBlocks The number of blocks in each group's inode table.
+    **   @param from The first table block to scan.
+    **   @param to The table block to stop before.
+    **/
+   public InodeScan(Volume volume, InodeVisitor visitor, int tableBlocks, int from, int to) {
+      this.volume = volume;
+      this.visitor = visitor;
+      this.tableBlocks = tableBlocks;
+      this.from = from;
+      this.to = to;
+   }
+   
+   protected void compute() {
+      if (to - from > LEAF_BLOCKS) {
+         int mid = (from + to) >>> 1;
+         invokeAll(new InodeScan(volume, visitor, tableBlocks, from, mid),
+                   new InodeScan(volume, visitor, tableBlocks, mid, to));
+         return;
+      }
+      
+      // a leaf may straddle the end of one group's table and the next
+      for (int b = from; b < to; ) {
+         int group = b / tableBlocks;
+         int end = Math.min(to, (group + 1) * tableBlocks);
+         volume.getBlockGroup(group).forEachInode(visitor, b - group * tableBlocks, end - group * tableBlocks);
+         b = end;
+      }
+   }
+}
@@ -0,0 +1,133 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents an open-addressing map from int keys to slot
+ ** indices, so that caches can be keyed without boxing.
+ **/
+
+import java.util.Arrays;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class IntSlotMap {
+   public static final int NO_SLOT = -1;
+   
+   private int[] keys;
+   private int[] slots;
+   private int mask;
+   private int size;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param maxEntries The most entries the map will ever hold.
+    **/
+   public IntSlotMap(int maxEntries) {
+      // keeps the load factor at or below one half
+      int capacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+      this.keys = new int[capacity];
+      this.slots = new int[capacity];
+      this.mask = capacity - 1;
+      Arrays.fill(this.slots, NO_SLOT);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param key The key.
+	 * @return The slot mapped to the key, or NO_SLOT.
+	 */
+   public int get(int key) {
+      for (int i = hash(key); slots[i] != NO_SLOT; i = (i + 1) & mask)
+         if (keys[i] == key) return slots[i];
+      return NO_SLOT;
+   }
+   
+   /**
+    * Maps a key to a slot, replacing any existing mapping.
+    *
+    * @param key The key.
+    * @param slot The slot.
+    */
+   public void put(int key, int slot) {
+      int i = hash(key);
+      while (slots[i] != NO_SLOT && keys[i] != key) i = (i + 1) & mask;
+      if (slots[i] == NO_SLOT) size++;
+      keys[i] = key;
+      slots[i] = slot;
+   }
+   
+   /**
+    * Removes a key, shifting back any entries that probed past it so that
+    * lookups never need tombstones.
+    *
+    * @param key The key.
+    * @return The slot that was mapped to the key, or NO_SLOT.
+    */
+   public int remove(int key) {
+      int i = hash(key);
+      while (slots[i] != NO_SLOT && keys[i] != key) i = (i + 1) & mask;
+      if (slots[i] == NO_SLOT) return NO_SLOT;
+      int removed = slots[i];
+      size--;
+      
+      int gap = i;
+      for (int j = (gap + 1) & mask; slots[j] != NO_SLOT; j = (j + 1) & mask) {
+         int home = hash(keys[j]);
+         // moves the entry into the gap if the gap lies between its home and j
+         if (((j - home) & mask) >= ((j - gap) & mask)) {
+            keys[gap] = keys[j];
+            slots[gap] = slots[j];
+            gap = j;
+         }
+      }
+      slots[gap] = NO_SLOT;
+      return removed;
+   }
+   
+   /**
+    * Removes every mapping.
+    */
+   public void clear() {
+      Arrays.fill(this.slots, NO_SLOT);
+      this.size = 0;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of mappings.
+	 */
+   public int size() {
+      return this.size;
+   }
+   
+   private int hash(int key) {
+      int h = key * 0x9E3779B9;
+      return (h ^ (h >>> 16)) & mask;
+   }
+}
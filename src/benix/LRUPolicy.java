@@ -0,0 +1,84 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a least-recently-used eviction policy, kept as a
+ ** doubly-linked list threaded through primitive arrays.
+ **/
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class LRUPolicy implements EvictionPolicy {
+   private static final int NIL = -1;
+   
+   private int[] prev;
+   private int[] next;
+   // head is the most recently used slot, tail the least
+   private int head = NIL, tail = NIL;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param numofSlots The number of slots in the cache.
+    **/
+   public LRUPolicy(int numofSlots) {
+      this.prev = new int[numofSlots];
+      this.next = new int[numofSlots];
+   }
+   
+   public void onInsert(int slot) {
+      pushHead(slot);
+   }
+   
+   public void onAccess(int slot) {
+      if (slot == head) return;
+      unlink(slot);
+      pushHead(slot);
+   }
+   
+   public void onRemove(int slot) {
+      unlink(slot);
+   }
+   
+   public int victim() {
+      return tail;
+   }
+   
+   private void pushHead(int slot) {
+      prev[slot] = NIL;
+      next[slot] = head;
+      if (head != NIL) prev[head] = slot;
+      head = slot;
+      if (tail == NIL) tail = slot;
+   }
+   
+   private void unlink(int slot) {
+      if (prev[slot] != NIL) next[prev[slot]] = next[slot];
+      else head = next[slot];
+      if (next[slot] != NIL) prev[next[slot]] = prev[slot];
+      else tail = prev[slot];
+   }
+}
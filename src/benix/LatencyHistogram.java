@@ -0,0 +1,139 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a histogram of operation latencies, with one bucket
+ ** per power of two nanoseconds. Each bucket is a LongAdder, so recording 
+ ** from many threads at once does not contend, and costs one increment.
+ **/
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class LatencyHistogram {
+   // bucket 0 holds 0ns; bucket i holds [2^(i-1), 2^i) nanoseconds
+   public static final int NUMOF_BUCKETS = 64;
+   
+   private final LongAdder[] buckets = new LongAdder[NUMOF_BUCKETS];
+   private final LongAdder totalNanos = new LongAdder();
+   
+   /**
+    **   Constructor method.
+    **/
+   public LatencyHistogram() {
+      for (int i = 0; i < NUMOF_BUCKETS; i++) buckets[i] = new LongAdder();
+   }
+   
+   /**
+    * Records one operation.
+    *
+    * @param nanos How long it took.
+    */
+   public void record(long nanos) {
+      if (nanos < 0) nanos = 0;
+      buckets[Math.min(NUMOF_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+      totalNanos.add(nanos);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of operations recorded.
+	 */
+   public long getCount() {
+      long count = 0;
+      for (LongAdder bucket : buckets) count += bucket.sum();
+      return count;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The mean latency in nanoseconds, or 0 if nothing is recorded.
+	 */
+   public double getMeanNanos() {
+      long count = this.getCount();
+      return (count == 0) ? 0 : (double)totalNanos.sum() / count;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The median latency in nanoseconds, to within a factor of two.
+	 */
+   public long getP50Nanos() {
+      return this.getPercentileNanos(0.5);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The 99th percentile latency in nanoseconds, to within a factor 
+    *         of two.
+	 */
+   public long getP99Nanos() {
+      return this.getPercentileNanos(0.99);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The count in each bucket.
+	 */
+   public long[] getBuckets() {
+      long[] counts = new long[NUMOF_BUCKETS];
+      for (int i = 0; i < NUMOF_BUCKETS; i++) counts[i] = buckets[i].sum();
+      return counts;
+   }
+   
+   /**
+    * Finds the bucket holding a percentile, and gives its upper bound.
+    *
+    * @param fraction The percentile, from 0 to 1.
+    * @return The latency in nanoseconds, or 0 if nothing is recorded.
+    */
+   public long getPercentileNanos(double fraction) {
+      long[] counts = this.getBuckets();
+      long count = 0;
+      for (long c : counts) count += c;
+      if (count == 0) return 0;
+      long rank = (long)Math.ceil(fraction * count), seen = 0;
+      for (int i = 0; i < NUMOF_BUCKETS; i++) {
+         seen += counts[i];
+         if (seen >= Math.max(1, rank)) return (i == 0) ? 0 : (i == 63) ? Long.MAX_VALUE : (1L << i) - 1;
+      }
+      return Long.MAX_VALUE;
+   }
+   
+   /**
+    * Clears the histogram. Operations recorded meanwhile may be lost.
+    */
+   public void reset() {
+      for (LongAdder bucket : buckets) bucket.reset();
+      totalNanos.reset();
+   }
+}
@@ -0,0 +1,270 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a volume's read-ahead: blocks that a sequential
+ ** reader is expected to ask for next are read on background threads into
+ ** a bounded buffer, from which the volume takes them when they are asked
+ ** for. Each run of physically contiguous blocks is read with one I/O.
+ **
+ ** A block being prefetched is entered in the buffer first, as a future, so
+ ** that a reader who catches up with it waits for that one block's I/O 
+ ** rather than issuing its own. Taking a block never locks: the buffer is a
+ ** ConcurrentHashMap, and only the prefetching side serializes, to reserve
+ ** room. If a read fails, its blocks' futures fail and the readers waiting
+ ** on them read the blocks for themselves. When the buffer is full, the 
+ ** oldest blocks read but never taken are pushed out, and counted as 
+ ** wasted.
+ **/
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class ReadAhead {
+   private final Volume volume;
+   private final int numofSlots;
+   private final ExecutorService executor;
+   private final ConcurrentHashMap<Integer, Prefetch> pending = new ConcurrentHashMap<>();
+   // free room in the buffer, in blocks
+   private final Semaphore room;
+   // orders prefetches oldest first; only touched under the lock
+   private long sequence;
+   private final LongAdder prefetched = new LongAdder(), hits = new LongAdder(), wasted = new LongAdder();
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param volume The volume to read from.
+    **   @param blockSize The size of a block in bytes.
+    **   @param maxBytes The most bytes of prefetched blocks to hold.
+    **   @param numofThreads The number of background threads to read with.
+    **/
+   public ReadAhead(Volume volume, int blockSize, long maxBytes, int numofThreads) {
+      this.volume = volume;
+      this.executor = Executors.newFixedThreadPool(numofThreads, runnable -> {
+         Thread thread = new Thread(runnable, "benix-readahead");
+         // close() stops the threads, but a volume left open must not keep
+         // the JVM alive
+         thread.setDaemon(true);
+         return thread;
+      });
+      this.numofSlots = (int)Math.max(1, maxBytes / blockSize);
+      this.room = new Semaphore(numofSlots);
+   }
+   
+   /**
+    * Prefetches a range of a file's blocks, skipping holes and blocks that
+    * are already cached or prefetched. Returns once the reads are queued.
+    *
+    * @param map The file's block map.
+    * @param from The index of the first block, from 0.
+    * @param count The number of blocks.
+    */
+   public void prefetch(BlockMap map, int from, int count) {
+      BlockCache cache = volume.getBlockCache();
+      int runStart = 0, runLength = 0;
+      for (int i = from; i < from + count; i++) {
+         int physical = map.getPhysical(i);
+         boolean wanted = physical != 0 && !cache.contains(physical);
+         if (runLength > 0 && (!wanted || physical != runStart + runLength)) {
+            this.submit(runStart, runLength);
+            runLength = 0;
+         }
+         if (!wanted) continue;
+         if (runLength == 0) runStart = physical;
+         runLength++;
+      }
+      if (runLength > 0) this.submit(runStart, runLength);
+   }
+   
+   /**
+    * Enters the run's blocks in the buffer and queues one read for them all.
+    */
+   private void submit(int start, int length) {
+      Prefetch[] run = new Prefetch[length];
+      int reserved = 0;
+      synchronized (this) {
+         // trims off blocks already prefetched, and whatever does not fit
+         while (length > 0 && pending.containsKey(start)) {
+            start++;
+            length--;
+         }
+         while (reserved < length && !pending.containsKey(start + reserved) && this.reserve()) {
+            run[reserved] = new Prefetch(sequence++);
+            pending.put(start + reserved, run[reserved]);
+            reserved++;
+         }
+      }
+      if (reserved == 0) return;
+      prefetched.add(reserved);
+      
+      final int runStart = start, runLength = reserved;
+      try {
+         executor.execute(() -> this.read(runStart, runLength, run));
+      } catch (RejectedExecutionException ex) {
+         // the volume is closing: the blocks will never be read, so whoever
+         // waits for them reads them for themselves
+         this.fail(runStart, runLength, run, ex);
+         prefetched.add(-runLength);
+      }
+   }
+   
+   /**
+    * Takes room for a block, pushing out the oldest blocks read but never 
+    * taken if the buffer is full. Called under the lock.
+    *
+    * @return Whether there was room.
+    */
+   private boolean reserve() {
+      if (room.tryAcquire()) return true;
+      List<Map.Entry<Integer, Prefetch>> read = new ArrayList<>();
+      for (Map.Entry<Integer, Prefetch> entry : pending.entrySet()) 
+         if (entry.getValue().block.isDone()) read.add(entry);
+      read.sort(Comparator.comparingLong(entry -> entry.getValue().sequence));
+      // pushes out an eighth of the buffer at once, so that a full buffer is
+      // not scanned for every block
+      int evicted = 0;
+      for (Map.Entry<Integer, Prefetch> entry : read) {
+         if (evicted == Math.max(1, numofSlots / 8)) break;
+         if (pending.remove(entry.getKey(), entry.getValue())) {
+            room.release();
+            wasted.increment();
+            evicted++;
+         }
+      }
+      return room.tryAcquire();
+   }
+   
+   /**
+    * Reads a run of blocks with one I/O, each into a buffer of its own.
+    */
+   private void read(int start, int length, Prefetch[] run) {
+      ByteBuffer[] blocks;
+      try {
+         blocks = volume.readRun(start, length);
+      } catch (Exception ex) {
+         this.fail(start, length, run, ex);
+         return;
+      }
+      for (int i = 0; i < length; i++) run[i].block.complete(blocks[i]);
+   }
+   
+   /**
+    * Removes a run's blocks from the buffer and fails their futures.
+    */
+   private void fail(int start, int length, Prefetch[] run, Exception ex) {
+      for (int i = 0; i < length; i++) {
+         if (pending.remove(start + i, run[i])) room.release();
+         run[i].block.completeExceptionally(ex);
+      }
+   }
+   
+   /**
+    * Stops the background threads once the reads already queued are done.
+    */
+   public void shutdown() {
+      executor.shutdown();
+   }
+   
+	/**
+	 *	Accessor function. Removes the block from the buffer, waiting for it if
+    * it is still being read.
+    *
+    * @param id The index of the block.
+	 * @return The block's byte dump, or null if it was not prefetched or its
+    *         read failed.
+	 */
+   public ByteBuffer take(int id) {
+      Prefetch prefetch = pending.get(id);
+      if (prefetch == null) return null;
+      ByteBuffer block;
+      try {
+         block = prefetch.block.get();
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+         return null;
+      } catch (ExecutionException ex) {
+         return null;
+      }
+      if (pending.remove(id, prefetch)) {
+         room.release();
+         hits.increment();
+      }
+      return block;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of blocks queued to be prefetched.
+	 */
+   public long getPrefetched() {
+      return this.prefetched.sum();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of prefetched blocks that were asked for.
+	 */
+   public long getHits() {
+      return this.hits.sum();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of prefetched blocks evicted before being asked for.
+	 */
+   public long getWasted() {
+      return this.wasted.sum();
+   }
+   
+   /**
+    * A block being or already prefetched.
+    */
+   private static class Prefetch {
+      final long sequence;
+      final CompletableFuture<ByteBuffer> block = new CompletableFuture<>();
+      
+      Prefetch(long sequence) {
+         this.sequence = sequence;
+      }
+   }
+}
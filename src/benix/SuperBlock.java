@@ -20,6 +20,8 @@
  * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
  ******************************************************************************/
 
+package benix;
+
 /**
  ** This class represents a superblock.
  **/
@@ -32,6 +34,11 @@ import java.lang.StringBuffer;
  **   @version 0.8
  **/
 final public class SuperBlock extends Block {       
+   // the superblock's place in the dump, whatever the block size
+   public static final int OFFSET = 1024, SIZE = 1024;
+   // revision 0 volumes have no inode size field
+   public static final int GOOD_OLD_INODE_SIZE = 128;
+   
    /**
     **   Constructor method.
     **
@@ -49,7 +56,8 @@ final public class SuperBlock extends Block {
          System.out.println("Number of inodes per group: " + this.getInodesPerGroup());
          System.out.println("Inode size: " + this.getInodeSize() + " bytes");
          System.out.println("Volume label: " + this.getVolumeLabel());
-         System.out.println("Size: " + this.getNumofBlocks() * BLOCK_SIZE + " bytes");
+         System.out.println("Block size: " + this.getBlockSize() + " bytes");
+         System.out.println("Size: " + (long)this.getNumofBlocks() * this.getBlockSize() + " bytes");
          System.out.println("Number of block groups: " + this.getNumofBlockGroups());
          System.out.println("-------------------------------------");
       }
@@ -73,6 +81,15 @@ final public class SuperBlock extends Block {
       return block.getInt(4);
    }
    
+	/**
+	 *	Accessor function.
+    *
+	 * @return The index of the block holding the superblock.
+	 */
+   public int getFirstDataBlock() {
+      return block.getInt(20);
+   }
+   
 	/**
 	 *	Accessor function.
     *
@@ -97,7 +114,45 @@ final public class SuperBlock extends Block {
 	 * @return The size of inodes in bytes.
 	 */
    public int getInodeSize() {
-      return block.getInt(88);
+      return (this.getRevisionLevel() == 0) ? GOOD_OLD_INODE_SIZE : block.getShort(88) & 0xFFFF;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The size of blocks in bytes, 1024 shifted left by 
+    *         s_log_block_size.
+	 */
+   public int getBlockSize() {
+      return 1024 << block.getInt(24);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The revision level of the filesystem.
+	 */
+   public int getRevisionLevel() {
+      return block.getInt(76);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param index The index of the word, 0 to 3.
+	 * @return One word of the seed for directory name hashes.
+	 */
+   public int getHashSeed(int index) {
+      return block.getInt(236 + index * 4);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return Whether directory hashes treat name bytes as unsigned.
+	 */
+   public boolean isHashUnsigned() {
+      return (block.getInt(352) & 0x2) != 0;
    }
    
 	/**
@@ -118,6 +173,7 @@ final public class SuperBlock extends Block {
 	 * @return The number of of block groups.
 	 */
    public int getNumofBlockGroups() {
-      return (int)Math.ceil(getNumofBlocks()/getBlocksPerGroup());
+      int dataBlocks = getNumofBlocks() - getFirstDataBlock();
+      return (dataBlocks + getBlocksPerGroup() - 1) / getBlocksPerGroup();
    }
 }
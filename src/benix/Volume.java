@@ -0,0 +1,1093 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents a volume. A volume may be shared by any number of
+ ** reading threads: its caches are split into independently locked stripes,
+ ** block groups are loaded under a lock, and blocks are read positionally,
+ ** so no reader moves a file pointer that another depends on. Blocks and
+ ** inodes handed out are never written to, but the streams and channels of
+ ** an Ext2File each belong to the one thread reading them.
+ **
+ ** In stream mode, files read block by block in order have the blocks ahead
+ ** of them prefetched on background threads; in mapped mode the kernel's
+ ** own read-ahead does the same for page faults.
+ **
+ ** The Async methods return at once with a CompletableFuture. In stream 
+ ** mode their reads are made through an AsyncReader, which bounds how many
+ ** are outstanding; in mapped mode there is no read to wait for, and their
+ ** futures are already complete. Their futures fail, rather than the calls
+ ** throwing, when a read cannot be made.
+ **
+ ** Not every step is asynchronous: building a block map reads any indirect
+ ** blocks, and directory lookups decode their blocks, with blocking calls.
+ ** Those steps run on whichever thread completed the read before them,
+ ** which in stream mode is one of the AsynchronousFileChannel's completion
+ ** threads, never the caller's. Stages chained onto the returned futures
+ ** without an executor may run there too, and so should not block.
+ **/
+
+import java.io.Closeable;
+import java.io.RandomAccessFile;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class Volume implements Closeable {
+   // largest single mapping; a multiple of every block size so no block 
+   // straddles two
+   public final int MAP_CHUNK_SIZE = 1 << 30;
+   public final long DEFAULT_CACHE_SIZE = 16 << 20;
+   public final int INODE_CACHE_SIZE = 4096;
+   public final int DENTRY_CACHE_SIZE = 8192;
+   public final int CACHE_STRIPES = 16;
+   public final long READ_AHEAD_SIZE = 4 << 20;
+   public final int READ_AHEAD_THREADS = 2;
+   // asynchronous reads in flight at once, and queued behind them
+   public final int ASYNC_IN_FLIGHT = 64, ASYNC_QUEUED = 1024;
+   public final int ROOT_INODE = 2;
+   
+   private RandomAccessFile file;
+   private FileChannel channel;
+   private MappedByteBuffer[] chunks;
+   private boolean mapped;
+   private BlockCache cache;
+   private InodeCache inodeCache;
+   private DentryCache dentryCache;
+   private ReadAhead readAhead;
+   private AsyncReader asyncReader;
+   private final VolumeStats stats = new VolumeStats(this);
+   private ByteBuffer hole;
+   private SuperBlock superBlock;
+   private int blockSize, inodeSize, inodesPerBlock;
+   private GroupDescTable groupDescs;
+   private int numofBlockGroups;
+   BlockGroup[] blockGroups = new BlockGroup[numofBlockGroups];
+       
+   /**
+    **   Constructor method. Mounts the volume memory-mapped.
+    **
+    **   @param fileName The name of the ext2 dump.
+    **/    
+   public Volume(String fileName) {
+      this(fileName, true);
+   }
+       
+   /**
+    **   Constructor method.
+    **
+    **   @param fileName The name of the ext2 dump.
+    **   @param mapped Whether to memory-map the dump or read it as a stream.
+    **/    
+   public Volume(String fileName, boolean mapped) {
+      this(fileName, mapped, -1, BlockCache.LRU);
+   }
+       
+   /**
+    **   Constructor method.
+    **
+    **   @param fileName The name of the ext2 dump.
+    **   @param mapped Whether to memory-map the dump or read it as a stream.
+    **   @param cacheSize The most bytes of blocks to cache, or -1 for the 
+    **          default.
+    **   @param cachePolicy The block cache's eviction policy, BlockCache.LRU
+    **          or BlockCache.CLOCK.
+    **/    
+   public Volume(String fileName, boolean mapped, long cacheSize, int cachePolicy) {
+      try {
+         file = new RandomAccessFile(fileName, "r");
+         channel = file.getChannel();
+         this.mapped = mapped;
+         if (mapped) mapChunks();
+         
+         // the superblock gives the geometry every buffer is sized from
+         superBlock = new SuperBlock(readSuperBlock(), false);
+         this.blockSize = superBlock.getBlockSize();
+         this.inodeSize = superBlock.getInodeSize();
+         this.inodesPerBlock = blockSize / inodeSize;
+         this.hole = ByteBuffer.allocate(blockSize).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+         
+         this.cache = new BlockCache((cacheSize < 0) ? DEFAULT_CACHE_SIZE : cacheSize, blockSize, cachePolicy, CACHE_STRIPES);
+         this.inodeCache = new InodeCache(INODE_CACHE_SIZE, CACHE_STRIPES);
+         this.dentryCache = new DentryCache(DENTRY_CACHE_SIZE, CACHE_STRIPES);
+         if (!mapped) this.readAhead = new ReadAhead(this, blockSize, READ_AHEAD_SIZE, READ_AHEAD_THREADS);
+         if (!mapped) this.asyncReader = new AsyncReader(this, Paths.get(fileName), ASYNC_IN_FLIGHT, ASYNC_QUEUED);
+         
+         // only the superblock and group descriptor table are read at mount;
+         // bitmaps and inode tables are read on first use
+         groupDescs = new GroupDescTable(this, superBlock, blockSize);
+         
+         numofBlockGroups = superBlock.getNumofBlockGroups();
+         blockGroups = new BlockGroup[numofBlockGroups];
+         // last, so that a mount that fails leaves no MXBean behind
+         if (VolumeStats.ENABLED) stats.register(fileName);
+      } catch (FileNotFoundException ex) {
+         System.out.println("AWSHIT");
+      } catch (IOException ex) {
+         System.out.println("ACK");
+      }
+   }
+   
+   /**
+    * Closes the dump and stops the read-ahead threads. Mapped blocks already
+    * handed out stay readable until they are collected.
+    */
+   public void close() throws IOException {
+      if (readAhead != null) readAhead.shutdown();
+      if (asyncReader != null) asyncReader.close();
+      stats.unregister();
+      file.close();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The superblock.
+	 */
+   SuperBlock getSuperBlock() {
+      return this.superBlock;
+   }
+   
+	/**
+	 *	Accessor function. The superblock is always the 1024 bytes from byte
+    * 1024 on, whatever the block size.
+    *
+	 * @return The superblock's byte dump.
+	 */
+   private ByteBuffer readSuperBlock() throws IOException {
+      if (mapped) 
+         return chunks[0].slice(SuperBlock.OFFSET, SuperBlock.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      ByteBuffer block = ByteBuffer.allocate(SuperBlock.SIZE);
+      this.readFully(block, SuperBlock.OFFSET);
+      return block.flip().order(ByteOrder.LITTLE_ENDIAN);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The size of a block in bytes.
+	 */
+   public int getBlockSize() {
+      return this.blockSize;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The size of an inode in bytes.
+	 */
+   public int getInodeSize() {
+      return this.inodeSize;
+   }
+   
+   /**
+    * Maps the whole dump read-only, in chunks of at most MAP_CHUNK_SIZE bytes
+    * so that dumps over 2GB can be addressed.
+    */
+   private void mapChunks() throws IOException {
+      long size = channel.size();
+      chunks = new MappedByteBuffer[(int)((size + MAP_CHUNK_SIZE - 1) / MAP_CHUNK_SIZE)];
+      for (int i = 0; i < chunks.length; i++) {
+         long start = (long)i * MAP_CHUNK_SIZE;
+         chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_CHUNK_SIZE, size - start));
+      }
+   }
+   
+	/**
+	 *	Accessor function. Loads the block group the first time it is asked for.
+    *
+    * @param id The index of the block group.
+	 * @return The BlockGroup.
+	 */
+   BlockGroup getBlockGroup(int id) {
+      BlockGroup group = blockGroups[id];
+      return (group != null) ? group : loadBlockGroup(id);
+   }
+   
+   /**
+    * Creates a block group under the volume's lock, so that racing readers
+    * share one BlockGroup. BlockGroup's fields are final, so the group is
+    * safely published by the array store.
+    */
+   private synchronized BlockGroup loadBlockGroup(int id) {
+      if (blockGroups[id] == null) blockGroups[id] = new BlockGroup(this, superBlock, groupDescs, id, false);
+      return blockGroups[id];
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The group descriptor table.
+	 */
+   GroupDescTable getGroupDescTable() {
+      return this.groupDescs;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param id The index of the block.
+	 * @return The block's byte dump.
+	 */
+   ByteBuffer getBlock(int id) {
+      return getBlock(id, false);
+   }
+   
+	/**
+	 *	Accessor function. In stream mode blocks are served from the block
+    * cache or the read-ahead buffer where possible; in mapped mode the 
+    * mapping already is one.
+    *
+    * @param id The index of the block.
+    * @param metadata Whether the block holds filesystem metadata.
+	 * @return The block's byte dump.
+	 */
+   ByteBuffer getBlock(int id, boolean metadata) {
+      if (!VolumeStats.ENABLED) return fetchBlock(id, metadata);
+      long start = System.nanoTime();
+      ByteBuffer block = fetchBlock(id, metadata);
+      stats.blockReads.record(System.nanoTime() - start);
+      stats.blocksDecoded.increment();
+      return block;
+   }
+   
+   private ByteBuffer fetchBlock(int id, boolean metadata) {
+      if (mapped) return getMappedBlock(id);
+      
+      ByteBuffer block = cache.get(id);
+      if (block == null) {
+         block = readAhead.take(id);
+         if (block == null) block = getStreamedBlock(id);
+         cache.put(id, block, metadata);
+      }
+      return block;
+   }
+   
+	/**
+	 *	Accessor function. Fetches many blocks at once: those not in the block
+    * cache or the read-ahead buffer are sorted, merged into runs of 
+    * physically adjacent blocks, and each run is read with one positional 
+    * read. Every block read is cached, in a buffer of its own.
+    *
+    * @param ids The indexes of the blocks, in any order, with 0 standing for
+    *        a hole.
+    * @param metadata Whether the blocks hold filesystem metadata.
+	 * @return The blocks' byte dumps, in the order asked for.
+    * @throws UncheckedIOException If a run cannot be read.
+	 */
+   ByteBuffer[] readBlocks(int[] ids, boolean metadata) {
+      ByteBuffer[] blocks = new ByteBuffer[ids.length];
+      if (VolumeStats.ENABLED) stats.blocksDecoded.add(ids.length);
+      if (mapped) {
+         for (int i = 0; i < ids.length; i++) blocks[i] = (ids[i] != 0) ? getMappedBlock(ids[i]) : hole;
+         return blocks;
+      }
+      
+      // each miss is its block index above its place in ids, so that sorting
+      // orders by block
+      long[] misses = new long[ids.length];
+      int numofMisses = 0;
+      for (int i = 0; i < ids.length; i++) {
+         if (ids[i] == 0) {
+            blocks[i] = hole;
+            continue;
+         }
+         blocks[i] = cache.get(ids[i]);
+         if (blocks[i] == null) blocks[i] = readAhead.take(ids[i]);
+         if (blocks[i] == null) misses[numofMisses++] = ((ids[i] & 0xFFFFFFFFL) << 32) | i;
+         else cache.put(ids[i], blocks[i], metadata);
+      }
+      Arrays.sort(misses, 0, numofMisses);
+      
+      for (int r = 0; r < numofMisses; ) {
+         int start = (int)(misses[r] >>> 32), last = start, end = r + 1;
+         // the same block asked for twice is read once
+         while (end < numofMisses && (int)(misses[end] >>> 32) - last <= 1) last = (int)(misses[end++] >>> 32);
+         ByteBuffer[] run;
+         try {
+            run = this.readRun(start, last - start + 1);
+         } catch (IOException ex) {
+            throw new UncheckedIOException("failed to read blocks " + start + " to " + last, ex);
+         }
+         for (int k = r; k < end; k++) {
+            int id = (int)(misses[k] >>> 32);
+            ByteBuffer block = run[id - start];
+            blocks[(int)misses[k]] = block;
+            if (k == r || id != (int)(misses[k - 1] >>> 32)) cache.put(id, block, metadata);
+         }
+         r = end;
+      }
+      return blocks;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The inode cache, for its hit, miss and eviction counts.
+	 */
+   public InodeCache getInodeCache() {
+      return this.inodeCache;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The directory entry cache, for its hit, miss and eviction 
+    *         counts.
+	 */
+   public DentryCache getDentryCache() {
+      return this.dentryCache;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The block cache, for its hit, miss and eviction counts.
+	 */
+   public BlockCache getBlockCache() {
+      return this.cache;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The asynchronous reader, for its in-flight, queued and rejected
+    *         counts, or null in mapped mode.
+	 */
+   public AsyncReader getAsyncReader() {
+      return this.asyncReader;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The volume's statistics, which stay at zero when 
+    *         VolumeStats.ENABLED is false.
+	 */
+   public VolumeStats getStats() {
+      return this.stats;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The read-ahead, for its prefetch, hit and waste counts, or null
+    *         in mapped mode.
+	 */
+   public ReadAhead getReadAhead() {
+      return this.readAhead;
+   }
+   
+	/**
+	 *	Accessor function. Returns a read-only view of the mapping, without
+    * copying.
+    *
+    * @param id The index of the block.
+	 * @return The block's byte dump.
+    * @throws IllegalArgumentException If the block is not in the dump.
+	 */
+   private ByteBuffer getMappedBlock(int id) {
+      long offset = (long)blockSize * id;
+      if (VolumeStats.ENABLED) stats.recordRead(blockSize);
+      try {
+         return chunks[(int)(offset / MAP_CHUNK_SIZE)]
+                  .slice((int)(offset % MAP_CHUNK_SIZE), blockSize)
+                  .order(ByteOrder.LITTLE_ENDIAN);
+      } catch (IndexOutOfBoundsException ex) {
+         throw new IllegalArgumentException("block " + id + " is outside the dump", ex);
+      }
+   }
+   
+	/**
+	 *	Accessor function. Reads the block from the dump into a new buffer.
+    *
+    * @param id The index of the block.
+	 * @return The block's byte dump.
+    * @throws UncheckedIOException If the block cannot be read.
+	 */
+   private ByteBuffer getStreamedBlock(int id) {
+      ByteBuffer block = ByteBuffer.allocate(blockSize);
+      try {
+         this.readFully(block, (long)blockSize * id);
+      } catch (IOException ex) {
+         throw new UncheckedIOException("failed to read block " + id, ex);
+      }
+      // Blocks only index absolutely, so one read-only buffer can be handed
+      // to every caller
+      return block.flip().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param id The index of the inode.
+    * @param debug Whether debug mode is active or not.
+	 * @return The Inode.
+	 */
+   Inode getInode(int id, boolean debug) {
+      if (!VolumeStats.ENABLED) return fetchInode(id, debug);
+      long start = System.nanoTime();
+      Inode inode = fetchInode(id, debug);
+      stats.inodeReads.record(System.nanoTime() - start);
+      return inode;
+   }
+   
+   private Inode fetchInode(int id, boolean debug) {
+      if (debug) return getInode(id, new InodeCursor()).toInode(debug);
+      
+      // inodes are shared through the inode cache, which debug mode bypasses
+      // so that the fields are printed
+      Inode inode = inodeCache.get(id);
+      if (inode == null) {
+         inode = getInode(id, new InodeCursor()).toInode(false);
+         inodeCache.put(id, inode);
+      }
+      return inode;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param id The index of the inode.
+    * @param cursor The cursor to point at the inode.
+	 * @return The cursor.
+	 */
+   InodeCursor getInode(int id, InodeCursor cursor) {
+      int index = (id - 1) % superBlock.getInodesPerGroup();
+      int table = groupDescs.getInodeTablePointer(this.getInodeBG(id));
+      if (VolumeStats.ENABLED) stats.inodesDecoded.increment();
+      return cursor.moveTo(this.getBlock(table + index / inodesPerBlock, true), inodeSize * (index % inodesPerBlock));
+   }
+   
+   /**
+    * Visits every inode in use on the volume, one block group at a time,
+    * with one reused cursor per group.
+    *
+    * @param visitor The callback for each inode.
+    */
+   public void forEachInode(InodeVisitor visitor) {
+      for (int i = 0; i < numofBlockGroups; i++)
+         this.getBlockGroup(i).forEachInode(visitor);
+   }
+   
+   /**
+    * Visits every inode in use on the volume in parallel on the common 
+    * ForkJoin pool, returning once every inode has been visited.
+    *
+    * @param visitor The thread-safe callback for each inode.
+    */
+   public void parallelForEachInode(InodeVisitor visitor) {
+      this.parallelForEachInode(visitor, ForkJoinPool.commonPool());
+   }
+   
+   /**
+    * Visits every inode in use on the volume in parallel, splitting the inode 
+    * tables of every block group into runs of blocks that are each decoded
+    * by one task.
+    *
+    * @param visitor The thread-safe callback for each inode.
+    * @param pool The pool to run the tasks on.
+    */
+   public void parallelForEachInode(InodeVisitor visitor, ForkJoinPool pool) {
+      if (numofBlockGroups == 0) return;
+      int tableBlocks = this.getBlockGroup(0).getNumofInodeTableBlocks();
+      pool.invoke(new InodeScan(this, visitor, tableBlocks, 0, numofBlockGroups * tableBlocks));
+   }
+
+   /**
+    * Visits the index of every block in use on the volume, from the block
+    * bitmaps.
+    *
+    * @param visitor The callback for each block.
+    */
+   public void forEachUsedBlock(IntConsumer visitor) {
+      for (int i = 0; i < numofBlockGroups; i++)
+         this.getBlockGroup(i).forEachUsedBlock(visitor);
+   }
+   
+	/**
+	 *	Accessor function. Counts the clear bits of every block bitmap.
+    *
+	 * @return The number of free blocks on the volume.
+	 */
+   public long getNumofFreeBlocks() {
+      long free = 0;
+      for (int i = 0; i < numofBlockGroups; i++) free += this.getBlockGroup(i).getNumofFreeBlocks();
+      return free;
+   }
+   
+	/**
+	 *	Accessor function. Counts the clear bits of every inode bitmap.
+    *
+	 * @return The number of free inodes on the volume.
+	 */
+   public long getNumofFreeInodes() {
+      long free = 0;
+      for (int i = 0; i < numofBlockGroups; i++) free += this.getBlockGroup(i).getNumofFreeInodes();
+      return free;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param path The path of the file, from the root directory.
+	 * @return The array of Blocks the file covers, or null if there is no
+    *         such file.
+    * @throws UncheckedIOException If the file's blocks cannot be read.
+    * @throws IllegalArgumentException If the file is a fast symlink.
+	 */
+   public Block[] getFile(String path) {
+      int iP = this.resolve(path);
+      return (iP != -1) ? this.getBlocks(this.getInode(iP, false)) : null;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param path The path of the directory, from the root directory.
+	 * @return The Directory, or null if there is no such directory.
+	 */
+   public Directory getDirectory(String path) {
+      int iP = this.resolve(path);
+      return (iP != -1) ? this.getDirectory(iP) : null;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param iP The inode pointer of the directory.
+	 * @return The Directory, or null if the inode is not a directory.
+	 */
+   private Directory getDirectory(int iP) {
+      Inode inode = this.getInode(iP, false);
+      if (!inode.isDirectory()) return null;
+      return new Directory(this, inode, superBlock, false);
+   }
+   
+	/**
+	 *	Accessor function. Unlike getFile, nothing but the file's block map is
+    * read until its Blocks, stream or channel are used.
+    *
+    * @param path The path of the file, from the root directory.
+	 * @return The Ext2File, or null if there is no such file.
+    * @throws IllegalArgumentException If the file is a fast symlink.
+	 */
+   public Ext2File open(String path) {
+      int iP = this.resolve(path);
+      if (iP == -1) return null;
+      Inode inode = this.getInode(iP, false);
+      return (inode.isDirectory()) ? new Directory(this, inode, superBlock, false) : new Ext2File(this, inode, false);
+   }
+   
+	/**
+	 *	Accessor function. Directory blocks are fetched together through the
+    * block cache; file data is read with one I/O per extent.
+    *
+    * @param inode The inode of the file.
+	 * @return The array of Blocks the file covers.
+    * @throws UncheckedIOException If the file's blocks cannot be read.
+	 */
+   private Block[] getBlocks(Inode inode) {
+      BlockMap map = new BlockMap(this, inode);
+      Block[] contentBlocks = new Block[map.getNumofBlocks()];
+      if (inode.isDirectory()) {
+         int[] ids = new int[contentBlocks.length];
+         for (int i = 0; i < ids.length; i++) ids[i] = map.getPhysical(i);
+         ByteBuffer[] blocks = this.readBlocks(ids, true);
+         for (int i = 0; i < ids.length; i++) contentBlocks[i] = new Block(blocks[i], false);
+         return contentBlocks;
+      }
+      
+      for (int e = 0; e < map.getNumofExtents(); e++) {
+         int first = map.getLogicalStart(e), physical = map.getPhysicalStart(e), length = map.getLength(e);
+         if (physical == 0) {
+            for (int i = 0; i < length; i++) contentBlocks[first + i] = new Block(getHole(), false);
+         } else {
+            ByteBuffer extent;
+            try {
+               extent = this.getExtent(physical, length);
+            } catch (IOException ex) {
+               throw new UncheckedIOException("failed to read blocks " + physical + " to " + (physical + length - 1), ex);
+            }
+            for (int i = 0; i < length; i++) contentBlocks[first + i] = new Block(extent, i * blockSize, blockSize, false);
+         }
+      }
+      return contentBlocks;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param inode The inode of the file.
+	 * @return The file's mapping of logical to physical blocks.
+	 */
+   BlockMap getBlockMap(Inode inode) {
+      return new BlockMap(this, inode);
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return A block of zeroes, standing in for a hole in a file.
+	 */
+   ByteBuffer getHole() {
+      return hole;
+   }
+   
+	/**
+	 *	Accessor function. Reads a run of physically contiguous blocks with a
+    * single read, bypassing the block cache. In mapped mode the run is a view
+    * of the mapping, unless it crosses from one chunk into the next.
+    *
+    * @param id The index of the first block.
+    * @param length The number of blocks.
+	 * @return The blocks' byte dump.
+	 */
+   ByteBuffer getExtent(int id, int length) throws IOException {
+      long offset = (long)blockSize * id;
+      int bytes = blockSize * length;
+      if (VolumeStats.ENABLED) stats.blocksDecoded.add(length);
+      if (mapped && offset / MAP_CHUNK_SIZE == (offset + bytes - 1) / MAP_CHUNK_SIZE) {
+         if (VolumeStats.ENABLED) stats.recordRead(bytes);
+         return chunks[(int)(offset / MAP_CHUNK_SIZE)].slice((int)(offset % MAP_CHUNK_SIZE), bytes)
+                  .order(ByteOrder.LITTLE_ENDIAN);
+      }
+      
+      ByteBuffer extent = ByteBuffer.allocate(bytes);
+      this.readFully(extent, offset);
+      return extent.flip().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+   }
+   
+   /**
+    * Fills a buffer from the dump with positional reads, which (unlike 
+    * seeking) are safe to issue from many threads at once.
+    *
+    * @param dst The buffer to fill.
+    * @param position The offset in the dump to read from.
+    */
+   void readFully(ByteBuffer dst, long position) throws IOException {
+      if (VolumeStats.ENABLED) stats.recordRead(dst.remaining());
+      while (dst.hasRemaining()) {
+         int n = channel.read(dst, position);
+         if (n == -1) throw new EOFException();
+         position += n;
+      }
+   }
+   
+   /**
+    * Reads a run of physically contiguous blocks with one positional read,
+    * then copies each block out into a buffer of its own. A cached block
+    * then holds on to nothing but itself, so the caches' byte budgets bound
+    * what they keep alive. (FileChannel's scattering read has no positional
+    * form, and moving the shared position would serialize readers.)
+    *
+    * @param start The index of the first block.
+    * @param length The number of blocks.
+    * @return The blocks' read-only byte dumps.
+    */
+   ByteBuffer[] readRun(int start, int length) throws IOException {
+      ByteBuffer run = ByteBuffer.allocate(blockSize * length);
+      this.readFully(run, (long)blockSize * start);
+      ByteBuffer[] blocks = new ByteBuffer[length];
+      for (int i = 0; i < length; i++) {
+         ByteBuffer block = ByteBuffer.allocate(blockSize).put(0, run, i * blockSize, blockSize);
+         blocks[i] = block.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+      }
+      return blocks;
+   }
+   
+   /**
+    * Copies a run of physically contiguous blocks straight from the dump to
+    * a channel, which the OS may do without the bytes passing through the
+    * JVM. The copy is positional, so it is safe from many threads at once.
+    *
+    * @param id The index of the first block.
+    * @param bytes The number of bytes to copy.
+    * @param target The channel to write to, at its current position.
+    */
+   void transferTo(int id, long bytes, WritableByteChannel target) throws IOException {
+      long position = (long)blockSize * id;
+      if (VolumeStats.ENABLED) stats.recordRead(bytes);
+      while (bytes > 0) {
+         long n = channel.transferTo(position, bytes, target);
+         if (n <= 0) throw new EOFException();
+         position += n;
+         bytes -= n;
+      }
+   }
+   
+   /**
+    * Reads part of a file into a buffer, mapping the offset to physical
+    * blocks and reading each extent straight into the buffer. Safe to call 
+    * from many threads at once.
+    *
+    * @param path The path of the file, from the root directory.
+    * @param offset The offset in the file to read from.
+    * @param dst The buffer to read into.
+    * @return The number of bytes read, or -1 if the offset is at or past the
+    *         end of the file (or there is no such file).
+    * @throws UncheckedIOException If the dump cannot be read.
+    */
+   public int read(String path, long offset, ByteBuffer dst) {
+      int iP = this.resolve(path);
+      if (iP == -1) return -1;
+      Inode inode = this.getInode(iP, false);
+      return this.read(this.getBlockMap(inode), inode.getFileSize(), offset, dst);
+   }
+   
+   /**
+    * Reads part of a file into a buffer. Holes are filled with zeroes; in
+    * mapped mode data is copied from the mapping, otherwise it is read into
+    * the buffer with positional reads.
+    *
+    * @param map The file's block map.
+    * @param length The length of the file in bytes.
+    * @param offset The offset in the file to read from.
+    * @param dst The buffer to read into.
+    * @return The number of bytes read, or -1 if the offset is at or past the
+    *         end of the file.
+    * @throws UncheckedIOException If the dump cannot be read.
+    */
+   int read(BlockMap map, long length, long offset, ByteBuffer dst) {
+      if (!VolumeStats.ENABLED) return readFile(map, length, offset, dst);
+      long start = System.nanoTime();
+      int n = readFile(map, length, offset, dst);
+      stats.fileReads.record(System.nanoTime() - start);
+      return n;
+   }
+   
+   private int readFile(BlockMap map, long length, long offset, ByteBuffer dst) {
+      if (offset >= length) return -1;
+      int total = (int)Math.min(dst.remaining(), length - offset);
+      int done = 0;
+      int limit = dst.limit();
+      try {
+         while (done < total) {
+            int extent = map.getExtent((int)(offset / blockSize));
+            long extentEnd = (long)(map.getLogicalStart(extent) + map.getLength(extent)) * blockSize;
+            int n = (int)Math.min(total - done, extentEnd - offset);
+            
+            if (map.getPhysicalStart(extent) == 0) {
+               for (int i = 0; i < n; i++) dst.put((byte)0);
+            } else {
+               long position = (long)blockSize * (map.getPhysicalStart(extent) - map.getLogicalStart(extent)) + offset;
+               dst.limit(dst.position() + n);
+               if (mapped) this.copyMapped(position, dst);
+               else this.readFully(dst, position);
+               dst.limit(limit);
+            }
+            offset += n;
+            done += n;
+         }
+      } catch (IOException ex) {
+         throw new UncheckedIOException("failed to read the file at offset " + offset, ex);
+      } finally {
+         dst.limit(limit);
+      }
+      return done;
+   }
+   
+   /**
+    * Copies from the mapping into a buffer until it is full, crossing from 
+    * one chunk to the next if need be.
+    *
+    * @throws IllegalArgumentException If the bytes run past the end of the
+    *         dump, as a corrupt block map can send them.
+    */
+   private void copyMapped(long position, ByteBuffer dst) {
+      long size = (long)(chunks.length - 1) * MAP_CHUNK_SIZE + chunks[chunks.length - 1].limit();
+      if (position < 0 || position + dst.remaining() > size)
+         throw new IllegalArgumentException("bytes " + position + " to " + (position + dst.remaining() - 1) + " are outside the dump");
+      if (VolumeStats.ENABLED) stats.recordRead(dst.remaining());
+      while (dst.hasRemaining()) {
+         int chunkOffset = (int)(position % MAP_CHUNK_SIZE);
+         MappedByteBuffer chunk = chunks[(int)(position / MAP_CHUNK_SIZE)];
+         int n = Math.min(dst.remaining(), chunk.limit() - chunkOffset);
+         dst.put(dst.position(), chunk, chunkOffset, n);
+         dst.position(dst.position() + n);
+         position += n;
+      }
+   }
+   
+	/**
+	 *	Accessor function. Walks the path one component at a time from the
+    * root directory, consulting the directory entry cache before reading
+    * each directory and caching what is found, or not found, in it.
+    *
+    * @param path The path, such as "/var/log/app/x.log". A leading "/" is
+    *        optional.
+	 * @return The inode pointer of the file, or -1 if there is no such file.
+	 */
+   public int resolve(String path) {
+      int iP = ROOT_INODE;
+      int start = 0;
+      while (start < path.length()) {
+         int end = path.indexOf('/', start);
+         if (end == -1) end = path.length();
+         if (end > start && !(end == start + 1 && path.charAt(start) == '.')) {
+            String name = path.substring(start, end);
+            int child = dentryCache.get(iP, name);
+            if (child == DentryCache.MISSING) {
+               Directory dir = this.getDirectory(iP);
+               if (dir == null) return -1;
+               // a failed lookup (-1) is cached as a NEGATIVE entry
+               child = dir.lookup(name);
+               dentryCache.put(iP, name, child);
+            }
+            if (child == DentryCache.NEGATIVE) return -1;
+            iP = child;
+         }
+         start = end + 1;
+      }
+      return iP;
+   }
+   
+	/**
+	 *	Accessor function. Reads the block if it is not in the block cache,
+    * and caches it once read.
+    *
+    * @param id The index of the block.
+	 * @return The block's byte dump, once read.
+	 */
+   public CompletableFuture<ByteBuffer> readBlockAsync(int id) {
+      return this.readBlockAsync(id, false);
+   }
+   
+   CompletableFuture<ByteBuffer> readBlockAsync(int id, boolean metadata) {
+      // there is no AsyncReader in mapped mode, nor any read to wait for
+      if (mapped) {
+         try {
+            return CompletableFuture.completedFuture(this.getBlock(id, metadata));
+         } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+         }
+      }
+      ByteBuffer cached = cache.get(id);
+      if (cached != null) return CompletableFuture.completedFuture(cached);
+      
+      long start = VolumeStats.ENABLED ? System.nanoTime() : 0;
+      return asyncReader.read(ByteBuffer.allocate(blockSize), (long)blockSize * id).thenApply(read -> {
+         ByteBuffer block = read.flip().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+         cache.put(id, block, metadata);
+         if (VolumeStats.ENABLED) {
+            stats.blockReads.record(System.nanoTime() - start);
+            stats.blocksDecoded.increment();
+         }
+         return block;
+      });
+   }
+   
+	/**
+	 *	Accessor function. Reads the inode's table block if the inode is not
+    * in the inode cache, and caches it once decoded.
+    *
+    * @param id The index of the inode.
+	 * @return The Inode, once read.
+	 */
+   public CompletableFuture<Inode> getInodeAsync(int id) {
+      Inode cached = inodeCache.get(id);
+      if (cached != null) return CompletableFuture.completedFuture(cached);
+      
+      int index = (id - 1) % superBlock.getInodesPerGroup(), table;
+      try {
+         table = groupDescs.getInodeTablePointer(this.getInodeBG(id));
+      } catch (IndexOutOfBoundsException ex) {
+         return CompletableFuture.failedFuture(new IllegalArgumentException("inode " + id + " is outside the volume", ex));
+      }
+      return this.readBlockAsync(table + index / inodesPerBlock, true).thenApply(block -> {
+         Inode inode = new InodeCursor().moveTo(block, inodeSize * (index % inodesPerBlock)).toInode(false);
+         inodeCache.put(id, inode);
+         if (VolumeStats.ENABLED) stats.inodesDecoded.increment();
+         return inode;
+      });
+   }
+   
+	/**
+	 *	Accessor function. Walks the path as resolve does, reading each 
+    * directory not answered by the directory entry cache with one 
+    * asynchronous read per extent. A directory's indirect blocks, if any,
+    * are read, and its blocks searched, by the completion thread that 
+    * finished the read before.
+    *
+    * @param path The path, such as "/var/log/app/x.log". A leading "/" is
+    *        optional.
+	 * @return The inode pointer of the file, or -1 if there is no such file,
+    *         once resolved.
+	 */
+   public CompletableFuture<Integer> resolveAsync(String path) {
+      return this.resolveAsync(path, 0, ROOT_INODE);
+   }
+   
+   /**
+    * Resolves the rest of a path, from the directory it has reached.
+    */
+   private CompletableFuture<Integer> resolveAsync(String path, int start, int iP) {
+      while (start < path.length()) {
+         int end = path.indexOf('/', start);
+         if (end == -1) end = path.length();
+         if (end > start && !(end == start + 1 && path.charAt(start) == '.')) {
+            String name = path.substring(start, end);
+            int child = dentryCache.get(iP, name);
+            if (child == DentryCache.MISSING) {
+               int parent = iP, rest = end + 1;
+               return this.getInodeAsync(parent).thenCompose(inode -> {
+                  if (!inode.isDirectory()) return CompletableFuture.completedFuture(-1);
+                  return this.readBlocksAsync(this.getBlockMap(inode)).thenCompose(blocks -> {
+                     int found = new Directory(blocks, superBlock, inode.isIndexed(), false).lookup(name);
+                     dentryCache.put(parent, name, found);
+                     return (found == DentryCache.NEGATIVE) ? CompletableFuture.completedFuture(-1) 
+                                                            : this.resolveAsync(path, rest, found);
+                  });
+               });
+            }
+            if (child == DentryCache.NEGATIVE) return CompletableFuture.completedFuture(-1);
+            iP = child;
+         }
+         start = end + 1;
+      }
+      return CompletableFuture.completedFuture(iP);
+   }
+   
+   /**
+    * Reads all of a directory's blocks, with one asynchronous read per 
+    * extent. The blocks bypass the block cache, as file data does.
+    *
+    * @param map The directory's block map.
+    * @return The directory's Blocks, once read.
+    */
+   private CompletableFuture<Block[]> readBlocksAsync(BlockMap map) {
+      Block[] blocks = new Block[map.getNumofBlocks()];
+      CompletableFuture<?>[] reads = new CompletableFuture<?>[map.getNumofExtents()];
+      for (int e = 0; e < reads.length; e++) {
+         int first = map.getLogicalStart(e), physical = map.getPhysicalStart(e), length = map.getLength(e);
+         if (physical == 0 || mapped) {
+            for (int i = 0; i < length; i++) 
+               blocks[first + i] = new Block((physical == 0) ? getHole() : this.getBlock(physical + i, true), false);
+            reads[e] = CompletableFuture.completedFuture(null);
+         } else {
+            reads[e] = asyncReader.read(ByteBuffer.allocate(blockSize * length), (long)blockSize * physical).thenAccept(read -> {
+               ByteBuffer extent = read.flip().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+               for (int i = 0; i < length; i++) blocks[first + i] = new Block(extent, i * blockSize, blockSize, false);
+               if (VolumeStats.ENABLED) stats.blocksDecoded.add(length);
+            });
+         }
+      }
+      return CompletableFuture.allOf(reads).thenApply(done -> blocks);
+   }
+   
+   /**
+    * Reads part of a file into a buffer, as read does, with one asynchronous
+    * read per extent straight into the buffer, all in flight at once. The 
+    * file's indirect blocks, if any, are read with blocking calls by the
+    * completion thread that finished reading its inode.
+    *
+    * @param path The path of the file, from the root directory.
+    * @param offset The offset in the file to read from.
+    * @param dst The buffer to read into, which must not be touched until the
+    *        future completes.
+    * @return The number of bytes read, or -1 if the offset is at or past the
+    *         end of the file (or there is no such file), once read.
+    */
+   public CompletableFuture<Integer> readFileAsync(String path, long offset, ByteBuffer dst) {
+      long start = VolumeStats.ENABLED ? System.nanoTime() : 0;
+      return this.resolveAsync(path).thenCompose(iP -> {
+         if (iP == -1) return CompletableFuture.completedFuture(-1);
+         return this.getInodeAsync(iP).thenCompose(inode -> this.readAsync(this.getBlockMap(inode), inode.getFileSize(), offset, dst));
+      }).whenComplete((n, ex) -> {
+         if (VolumeStats.ENABLED) stats.fileReads.record(System.nanoTime() - start);
+      });
+   }
+   
+   private CompletableFuture<Integer> readAsync(BlockMap map, long length, long offset, ByteBuffer dst) {
+      if (mapped) return CompletableFuture.completedFuture(this.readFile(map, length, offset, dst));
+      if (offset >= length) return CompletableFuture.completedFuture(-1);
+      
+      int total = (int)Math.min(dst.remaining(), length - offset);
+      int from = dst.position(), done = 0;
+      CompletableFuture<?>[] reads = new CompletableFuture<?>[map.getNumofExtents()];
+      int numofReads = 0;
+      while (done < total) {
+         int extent = map.getExtent((int)(offset / blockSize));
+         long extentEnd = (long)(map.getLogicalStart(extent) + map.getLength(extent)) * blockSize;
+         int n = (int)Math.min(total - done, extentEnd - offset);
+         
+         ByteBuffer part = dst.slice(from + done, n);
+         if (map.getPhysicalStart(extent) == 0) {
+            while (part.hasRemaining()) part.put((byte)0);
+         } else {
+            long position = (long)blockSize * (map.getPhysicalStart(extent) - map.getLogicalStart(extent)) + offset;
+            reads[numofReads++] = asyncReader.read(part, position);
+         }
+         offset += n;
+         done += n;
+      }
+      return CompletableFuture.allOf(Arrays.copyOf(reads, numofReads)).thenApply(read -> {
+         dst.position(from + total);
+         return total;
+      });
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+    * @param iP The inode pointer.
+	 * @return The block group containing the inode.
+	 */
+   private int getInodeBG(int iP) {
+      return (iP - 1) / this.superBlock.getInodesPerGroup();
+   }
+   
+   /**
+    * Prints the directory listing.
+    * 
+    * @param dirName The directory name.
+    */ 
+   public void listDir(String dirName) {
+      Directory dir = this.getDirectory(dirName);
+      if (dir != null) dir.listDir();
+      else System.out.println(dirName + ": no such directory");
+   }
+   
+   /**
+    * Prints the directory listing.
+    */
+   public void listRoot() {
+      this.getBlockGroup(0).listDir();
+   }
+}
@@ -0,0 +1,252 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This class represents the statistics of a mounted Volume: counters of 
+ ** the reads it makes and what it decodes, latency histograms of its read
+ ** paths, and the hit ratios of its caches. It is registered as an MXBean
+ ** named benix:type=Volume for as long as the volume is mounted.
+ **
+ ** Recording is on by default, and costs a LongAdder increment or two and a
+ ** System.nanoTime() per operation. Starting the JVM with -Dbenix.stats=false
+ ** turns it off; ENABLED is then a false constant, and the JIT drops every
+ ** branch that records.
+ **/
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public class VolumeStats implements VolumeStatsMXBean {
+   public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("benix.stats"));
+   
+   // tells apart volumes mounted from the same dump
+   private static final AtomicInteger mounts = new AtomicInteger();
+   
+   final LongAdder physicalReads = new LongAdder(), bytesRead = new LongAdder(),
+                   blocksDecoded = new LongAdder(), inodesDecoded = new LongAdder();
+   final LatencyHistogram blockReads = new LatencyHistogram(), inodeReads = new LatencyHistogram(),
+                          lookups = new LatencyHistogram(), fileReads = new LatencyHistogram();
+   private final Volume volume;
+   private ObjectName name;
+   
+   /**
+    **   Constructor method.
+    **
+    **   @param volume The volume whose caches' hit ratios are shown.
+    **/
+   VolumeStats(Volume volume) {
+      this.volume = volume;
+   }
+   
+   /**
+    * Counts a read from the dump.
+    *
+    * @param bytes The number of bytes read.
+    */
+   void recordRead(long bytes) {
+      physicalReads.increment();
+      bytesRead.add(bytes);
+   }
+   
+   /**
+    * Registers the statistics with the platform MBean server. Failing to is
+    * not fatal to the mount.
+    *
+    * @param fileName The name of the ext2 dump.
+    */
+   void register(String fileName) {
+      try {
+         name = new ObjectName("benix:type=Volume,name=" + ObjectName.quote(fileName) + ",id=" + mounts.incrementAndGet());
+         ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+      } catch (JMException ex) {
+         // the volume works without its statistics, so the mount goes on
+         System.err.println("benix: could not register the statistics of " + fileName + ": " + ex);
+         name = null;
+      }
+   }
+   
+   /**
+    * Unregisters the statistics, if they were registered.
+    */
+   void unregister() {
+      if (name == null) return;
+      try {
+         ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+      } catch (JMException ex) {
+         System.err.println("benix: could not unregister " + name + ": " + ex);
+      }
+      name = null;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The name the statistics are registered under, or null if they
+    *         are not.
+	 */
+   public ObjectName getName() {
+      return this.name;
+   }
+   
+	/**
+	 *	Accessor function. In mapped mode each slice or copy of the mapping
+    * counts as a read.
+    *
+	 * @return The number of reads from the dump.
+	 */
+   public long getPhysicalReads() {
+      return physicalReads.sum();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of bytes read from the dump.
+	 */
+   public long getBytesRead() {
+      return bytesRead.sum();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of blocks served, from the caches or the dump.
+	 */
+   public long getBlocksDecoded() {
+      return blocksDecoded.sum();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The number of inodes decoded from their inode tables.
+	 */
+   public long getInodesDecoded() {
+      return inodesDecoded.sum();
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The latencies of block reads.
+	 */
+   public LatencyHistogram getBlockReads() {
+      return this.blockReads;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The latencies of inode reads, including inode cache hits.
+	 */
+   public LatencyHistogram getInodeReads() {
+      return this.inodeReads;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The latencies of directory lookups.
+	 */
+   public LatencyHistogram getLookups() {
+      return this.lookups;
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The latencies of file reads.
+	 */
+   public LatencyHistogram getFileReads() {
+      return this.fileReads;
+   }
+   
+	/**
+	 *	Accessor function. The block cache is only used in stream mode.
+    *
+	 * @return The fraction of block cache lookups that hit.
+	 */
+   public double getBlockCacheHitRatio() {
+      BlockCache cache = volume.getBlockCache();
+      return ratio(cache.getHits(), cache.getMisses());
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The fraction of inode cache lookups that hit.
+	 */
+   public double getInodeCacheHitRatio() {
+      return volume.getInodeCache().getHitRate();
+   }
+   
+	/**
+	 *	Accessor function. Cached misses count as hits.
+    *
+	 * @return The fraction of directory entry cache lookups that hit.
+	 */
+   public double getDentryCacheHitRatio() {
+      DentryCache cache = volume.getDentryCache();
+      long hits = cache.getHits() + cache.getNegativeHits();
+      return ratio(hits, cache.getMisses());
+   }
+   
+	/**
+	 *	Accessor function.
+    *
+	 * @return The fraction of prefetched blocks that were used, or 0 in 
+    *         mapped mode.
+	 */
+   public double getReadAheadHitRatio() {
+      ReadAhead readAhead = volume.getReadAhead();
+      if (readAhead == null) return 0;
+      long prefetched = readAhead.getPrefetched();
+      return (prefetched == 0) ? 0 : (double)readAhead.getHits() / prefetched;
+   }
+   
+   /**
+    * Clears the counters and histograms, but not the caches' counts.
+    */
+   public void reset() {
+      physicalReads.reset();
+      bytesRead.reset();
+      blocksDecoded.reset();
+      inodesDecoded.reset();
+      blockReads.reset();
+      inodeReads.reset();
+      lookups.reset();
+      fileReads.reset();
+   }
+   
+   private static double ratio(long hits, long misses) {
+      return (hits + misses == 0) ? 0 : (double)hits / (hits + misses);
+   }
+}
@@ -0,0 +1,51 @@
+/******************************************************************************
+ *                             Benix 0.8                                      *
+ *                  Copyright © 2015 Ben Goldsworthy (rumps)                  *
+ *                                                                            *
+ * A program to simulate an OS and read a file store.                         *
+ *                                                                            *
+ * This file is part of Benix.                                                *
+ *                                                                            *
+ * Benix is free software: you can redistribute it and/or modify              *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * Benix is distributed in the hope that it will be useful,                   *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with Benix.  If not, see <http://www.gnu.org/licenses/>.             *
+ ******************************************************************************/
+
+package benix;
+
+/**
+ ** This interface represents what a mounted Volume's statistics show over
+ ** JMX. Latencies are in nanoseconds, and hit ratios run from 0 to 1.
+ **/
+
+/**
+ **   @author  Ben Goldsworthy (rumps) <me+benix@bengoldsworthy.net>
+ **   @version 0.8
+ **/
+public interface VolumeStatsMXBean {
+   long getPhysicalReads();
+   long getBytesRead();
+   long getBlocksDecoded();
+   long getInodesDecoded();
+   
+   LatencyHistogram getBlockReads();
+   LatencyHistogram getInodeReads();
+   LatencyHistogram getLookups();
+   LatencyHistogram getFileReads();
+   
+   double getBlockCacheHitRatio();
+   double getInodeCacheHitRatio();
+   double getDentryCacheHitRatio();
+   double getReadAheadHitRatio();
+   
+   void reset();
+}